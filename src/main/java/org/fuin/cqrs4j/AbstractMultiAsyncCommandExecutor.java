@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.ConstraintViolationException;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Handles multiple commands asynchronously by delegating the call to other executors.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public abstract class AbstractMultiAsyncCommandExecutor<CONTEXT, RESULT> implements AsyncCommandExecutor<CONTEXT, RESULT, Command> {
+
+    private final EventTypeRegistry registry;
+
+    private final AsyncCommandExecutor[] commandExecutors;
+
+    /**
+     * Constructor with command handler array.
+     * 
+     * @param cmdExecutors
+     *            Array of command executors.
+     */
+    public AbstractMultiAsyncCommandExecutor(@NotEmpty final AsyncCommandExecutor... cmdExecutors) {
+        this(Arrays.asList(cmdExecutors));
+    }
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param cmdExecutors
+     *            List of command executors.
+     */
+    public AbstractMultiAsyncCommandExecutor(@NotEmpty final List<AsyncCommandExecutor> cmdExecutors) {
+        super();
+        Contract.requireArgNotNull("cmdExecutors", cmdExecutors);
+        if (cmdExecutors.isEmpty()) {
+            throw new ConstraintViolationException("The argument 'cmdExecutors' cannot be an empty list");
+        }
+        final Map<EventType, AsyncCommandExecutor> executorMap = new HashMap<>();
+        for (final AsyncCommandExecutor cmdExecutor : cmdExecutors) {
+            if (cmdExecutor == null) {
+                throw new ConstraintViolationException("Null is not allowed in the list of 'cmdExecutors': " + cmdExecutors);
+            }
+            final Set<EventType> cmdTypes = cmdExecutor.getCommandTypes();
+            for (final EventType cmdType : cmdTypes) {
+                if (executorMap.containsKey(cmdType)) {
+                    throw new ConstraintViolationException(
+                            "The argument 'cmdExecutors' contains multiple executors for command: " + cmdType);
+                }
+                executorMap.put(cmdType, cmdExecutor);
+            }
+        }
+        this.registry = new EventTypeRegistry(executorMap.keySet());
+        this.commandExecutors = new AsyncCommandExecutor[registry.size()];
+        for (final Map.Entry<EventType, AsyncCommandExecutor> entry : executorMap.entrySet()) {
+            commandExecutors[registry.indexOf(entry.getKey())] = entry.getValue();
+        }
+    }
+
+    @Override
+    public final Set<EventType> getCommandTypes() {
+        return registry.getTypes();
+    }
+
+    @Override
+    public final CompletableFuture<RESULT> executeAsync(final CONTEXT ctx, final Command cmd) {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+        final int index = registry.indexOf(cmd.getEventType());
+        if (index == EventTypeRegistry.UNKNOWN) {
+            throw new IllegalArgumentException("No executor found for command: " + cmd.getEventType());
+        }
+        final AsyncCommandExecutor<CONTEXT, RESULT, Command> cmdExecutor = commandExecutors[index];
+        return cmdExecutor.executeAsync(ctx, cmd);
+    }
+
+}
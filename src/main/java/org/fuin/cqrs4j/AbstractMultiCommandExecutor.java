@@ -45,7 +45,9 @@ import org.fuin.objects4j.common.Contract;
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public abstract class AbstractMultiCommandExecutor<CONTEXT, RESULT> implements CommandExecutor<CONTEXT, RESULT, Command> {
 
-    private final Map<EventType, CommandExecutor> commandExecutors;
+    private final EventTypeRegistry registry;
+
+    private final CommandExecutor[] commandExecutors;
 
     /**
      * Constructor with command handler array.
@@ -69,25 +71,30 @@ public abstract class AbstractMultiCommandExecutor<CONTEXT, RESULT> implements C
         if (cmdExecutors.isEmpty()) {
             throw new ConstraintViolationException("The argument 'cmdExecutors' cannot be an empty list");
         }
-        this.commandExecutors = new HashMap<>();
+        final Map<EventType, CommandExecutor> executorMap = new HashMap<>();
         for (final CommandExecutor cmdExecutor : cmdExecutors) {
             if (cmdExecutor == null) {
                 throw new ConstraintViolationException("Null is not allowed in the list of 'cmdExecutors': " + cmdExecutors);
             }
             final Set<EventType> cmdTypes = cmdExecutor.getCommandTypes();
             for (final EventType cmdType : cmdTypes) {
-                if (this.commandExecutors.containsKey(cmdType)) {
+                if (executorMap.containsKey(cmdType)) {
                     throw new ConstraintViolationException(
                             "The argument 'cmdExecutors' contains multiple executors for command: " + cmdType);
                 }
-                this.commandExecutors.put(cmdType, cmdExecutor);
+                executorMap.put(cmdType, cmdExecutor);
             }
         }
+        this.registry = new EventTypeRegistry(executorMap.keySet());
+        this.commandExecutors = new CommandExecutor[registry.size()];
+        for (final Map.Entry<EventType, CommandExecutor> entry : executorMap.entrySet()) {
+            commandExecutors[registry.indexOf(entry.getKey())] = entry.getValue();
+        }
     }
 
     @Override
     public final Set<EventType> getCommandTypes() {
-        return commandExecutors.keySet();
+        return registry.getTypes();
     }
 
     @Override
@@ -95,10 +102,11 @@ public abstract class AbstractMultiCommandExecutor<CONTEXT, RESULT> implements C
             AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException, CommandExecutionFailedException {
         Contract.requireArgNotNull("ctx", ctx);
         Contract.requireArgNotNull("cmd", cmd);
-        final CommandExecutor<CONTEXT, RESULT, Command> cmdExecutor = commandExecutors.get(cmd.getEventType());
-        if (cmdExecutor == null) {
+        final int index = registry.indexOf(cmd.getEventType());
+        if (index == EventTypeRegistry.UNKNOWN) {
             throw new IllegalArgumentException("No executor found for command: " + cmd.getEventType());
         }
+        final CommandExecutor<CONTEXT, RESULT, Command> cmdExecutor = commandExecutors[index];
         return cmdExecutor.execute(ctx, cmd);
     }
 
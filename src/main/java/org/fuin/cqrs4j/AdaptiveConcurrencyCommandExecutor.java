@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that limits the number of concurrently executed commands and adapts the limit to the observed latency. The algorithm is
+ * similar to TCP Vegas: The lowest latency seen is taken as the latency without load. From the ratio of that latency to the latency of
+ * the last command the number of queued commands in the downstream system (for example the event store) is estimated. If the estimate is
+ * small the limit is increased by one and if it is large the limit is decreased by one. A caller over the limit waits a short time for a
+ * free slot and is then rejected with a {@link SimpleResult} error with code {@link Cqrs4JUtils#OVERLOADED}. Callers with a
+ * {@link DeadlineAware} context never wait beyond their deadline and are rejected with code {@link Cqrs4JUtils#DEADLINE_EXCEEDED} once
+ * it passed.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class AdaptiveConcurrencyCommandExecutor<CONTEXT, RESULT, CMD extends Command>
+        implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    /** Estimated queue size below which the limit is increased. */
+    private static final int ALPHA = 3;
+
+    /** Estimated queue size above which the limit is decreased. */
+    private static final int BETA = 6;
+
+    /** Number of samples after which the latency without load is measured again. */
+    private static final int PROBE_SAMPLES = 1000;
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long maxWaitNanos;
+
+    private final Function<SimpleResult, RESULT> rejectionMapper;
+
+    private final AtomicLong rejected;
+
+    private int limit;
+
+    private int inFlight;
+
+    private long minRttNanos;
+
+    private int samples;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor that actually executes the commands.
+     * @param initialLimit
+     *            Limit used until the first latencies were measured.
+     * @param minLimit
+     *            Lowest value the limit is decreased to.
+     * @param maxLimit
+     *            Highest value the limit is increased to.
+     * @param maxWaitMillis
+     *            Maximum time a caller over the limit waits for a free slot. Zero rejects immediately.
+     * @param rejectionMapper
+     *            Converts the error for a rejected command into the result type of the executor.
+     */
+    public AdaptiveConcurrencyCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate, final int initialLimit,
+            final int minLimit, final int maxLimit, final long maxWaitMillis,
+            @NotNull final Function<SimpleResult, RESULT> rejectionMapper) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("rejectionMapper", rejectionMapper);
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("The argument 'minLimit' must be greater than zero, but was: " + minLimit);
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException(
+                    "The argument 'maxLimit' cannot be less than 'minLimit' (" + minLimit + "), but was: " + maxLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "The argument 'initialLimit' must be between " + minLimit + " and " + maxLimit + ", but was: " + initialLimit);
+        }
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("The argument 'maxWaitMillis' cannot be negative, but was: " + maxWaitMillis);
+        }
+        this.delegate = delegate;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.rejectionMapper = rejectionMapper;
+        this.rejected = new AtomicLong();
+        this.limit = initialLimit;
+        this.minRttNanos = Long.MAX_VALUE;
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final Deadline deadline = Deadline.of(ctx);
+        if (!acquire(deadline)) {
+            rejected.incrementAndGet();
+            if (deadline != null && deadline.isExpired()) {
+                return rejectionMapper.apply(SimpleResult.error(Cqrs4JUtils.DEADLINE_EXCEEDED,
+                        "Deadline exceeded while waiting for the concurrency limit, command '" + cmd.getEventType() + "' was dropped"));
+            }
+            return rejectionMapper.apply(SimpleResult.error(Cqrs4JUtils.OVERLOADED,
+                    "Concurrency limit reached, command '" + cmd.getEventType() + "' was rejected"));
+        }
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final RESULT result = delegate.execute(ctx, cmd);
+            success = true;
+            return result;
+        } finally {
+            release(success, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     * 
+     * @return Maximum number of commands executed at the same time.
+     */
+    public final synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of commands currently executed.
+     * 
+     * @return Commands in flight.
+     */
+    public final synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Returns the number of commands rejected because the limit was reached or their deadline passed.
+     * 
+     * @return Number of rejected commands.
+     */
+    public final long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private synchronized boolean acquire(final Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            return false;
+        }
+        if (inFlight < limit) {
+            inFlight++;
+            return true;
+        }
+        long waitNanos = maxWaitNanos;
+        if (deadline != null) {
+            waitNanos = Math.min(waitNanos, deadline.getRemaining(TimeUnit.NANOSECONDS));
+        }
+        final long end = System.nanoTime() + waitNanos;
+        try {
+            while (inFlight >= limit) {
+                final long remaining = end - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    private synchronized void release(final boolean success, final long rttNanos) {
+        final int concurrency = inFlight;
+        inFlight--;
+        // Failed commands often return early and would distort the latency without load
+        if (success) {
+            adjust(concurrency, Math.max(1, rttNanos));
+        }
+        notifyAll();
+    }
+
+    private void adjust(final int concurrency, final long rttNanos) {
+        samples++;
+        if (samples >= PROBE_SAMPLES) {
+            samples = 0;
+            minRttNanos = rttNanos;
+        } else if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        final double queue = limit * (1.0 - (double) minRttNanos / rttNanos);
+        if (queue < ALPHA) {
+            // Only grow if the current limit is actually used
+            if (concurrency * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } else if (queue > BETA) {
+            limit = Math.max(minLimit, limit - 1);
+        }
+    }
+
+}
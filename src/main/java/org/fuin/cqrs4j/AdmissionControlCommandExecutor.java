@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that limits the rate and the concurrency of commands per command type. A command that exceeds the {@link AdmissionLimit} of
+ * its type is not queued, but immediately answered with a {@link SimpleResult} error with code {@link Cqrs4JUtils#OVERLOADED}. So an
+ * expensive command type can never use the capacity reserved for other types. Command types without a limit are always executed.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class AdmissionControlCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final Function<SimpleResult, RESULT> rejectionMapper;
+
+    private final EventTypeRegistry registry;
+
+    private final Gate[] gates;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor that actually executes the commands.
+     * @param limits
+     *            Limits by command type. Types that are not contained in the map are not limited.
+     * @param rejectionMapper
+     *            Converts the error for a rejected command into the result type of the executor.
+     */
+    public AdmissionControlCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate,
+            @NotNull final Map<EventType, AdmissionLimit> limits, @NotNull final Function<SimpleResult, RESULT> rejectionMapper) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("limits", limits);
+        Contract.requireArgNotNull("rejectionMapper", rejectionMapper);
+        this.delegate = delegate;
+        this.rejectionMapper = rejectionMapper;
+        this.registry = new EventTypeRegistry(delegate.getCommandTypes());
+        this.gates = new Gate[registry.size()];
+        for (final Map.Entry<EventType, AdmissionLimit> entry : limits.entrySet()) {
+            final int index = registry.indexOf(entry.getKey());
+            if (index == EventTypeRegistry.UNKNOWN) {
+                throw new IllegalArgumentException("The delegate does not execute commands of type: " + entry.getKey());
+            }
+            Contract.requireArgNotNull("limit", entry.getValue());
+            gates[index] = new Gate(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final int index = registry.indexOf(cmd.getEventType());
+        final Gate gate = (index == EventTypeRegistry.UNKNOWN) ? null : gates[index];
+        if (gate == null) {
+            return delegate.execute(ctx, cmd);
+        }
+        if (!gate.concurrency.tryAcquire()) {
+            gate.rejected.incrementAndGet();
+            return rejectionMapper.apply(SimpleResult.error(Cqrs4JUtils.OVERLOADED,
+                    "Too many concurrent commands of type '" + gate.type + "' (" + gate.limit.getMaxConcurrent() + ")"));
+        }
+        try {
+            if (!gate.tryTakeToken()) {
+                gate.rejected.incrementAndGet();
+                return rejectionMapper.apply(SimpleResult.error(Cqrs4JUtils.OVERLOADED,
+                        "Rate limit for commands of type '" + gate.type + "' exceeded (" + gate.limit.getPermitsPerSecond() + "/s)"));
+            }
+            gate.admitted.incrementAndGet();
+            return delegate.execute(ctx, cmd);
+        } finally {
+            gate.concurrency.release();
+        }
+    }
+
+    /**
+     * Returns the number of admitted commands per limited command type.
+     * 
+     * @return Unmodifiable snapshot of the counters.
+     */
+    @NotNull
+    public final Map<EventType, Long> getAdmittedCounts() {
+        final Map<EventType, Long> counts = new HashMap<>();
+        for (final Gate gate : gates) {
+            if (gate != null) {
+                counts.put(gate.type, gate.admitted.get());
+            }
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Returns the number of rejected commands per limited command type.
+     * 
+     * @return Unmodifiable snapshot of the counters.
+     */
+    @NotNull
+    public final Map<EventType, Long> getRejectedCounts() {
+        final Map<EventType, Long> counts = new HashMap<>();
+        for (final Gate gate : gates) {
+            if (gate != null) {
+                counts.put(gate.type, gate.rejected.get());
+            }
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Token bucket and concurrency limit for one command type.
+     */
+    private static final class Gate {
+
+        private final EventType type;
+
+        private final AdmissionLimit limit;
+
+        private final Semaphore concurrency;
+
+        private final double nanosPerToken;
+
+        private final AtomicLong admitted;
+
+        private final AtomicLong rejected;
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        Gate(final EventType type, final AdmissionLimit limit) {
+            this.type = type;
+            this.limit = limit;
+            this.concurrency = new Semaphore(limit.getMaxConcurrent());
+            this.nanosPerToken = 1000000000.0 / limit.getPermitsPerSecond();
+            this.admitted = new AtomicLong();
+            this.rejected = new AtomicLong();
+            this.tokens = limit.getBurst();
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryTakeToken() {
+            final long now = System.nanoTime();
+            tokens = Math.min(limit.getBurst(), tokens + (now - lastRefillNanos) / nanosPerToken);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens = tokens - 1;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+/**
+ * Limits for the admission of commands of one type. A command is only executed if a token is available in a bucket that is refilled with
+ * a constant rate and if the number of commands currently executed stays below a maximum.
+ */
+public final class AdmissionLimit {
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final int maxConcurrent;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param permitsPerSecond
+     *            Rate the token bucket is refilled with.
+     * @param burst
+     *            Maximum number of tokens in the bucket. This is the number of commands that may be admitted at once after an idle period.
+     * @param maxConcurrent
+     *            Maximum number of commands executed at the same time.
+     */
+    public AdmissionLimit(final double permitsPerSecond, final int burst, final int maxConcurrent) {
+        super();
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("The argument 'permitsPerSecond' must be greater than zero, but was: " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The argument 'burst' must be greater than zero, but was: " + burst);
+        }
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("The argument 'maxConcurrent' must be greater than zero, but was: " + maxConcurrent);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Returns the rate the token bucket is refilled with.
+     * 
+     * @return Tokens per second.
+     */
+    public final double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Returns the capacity of the token bucket.
+     * 
+     * @return Maximum number of tokens.
+     */
+    public final int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns the maximum number of commands executed at the same time.
+     * 
+     * @return Maximum concurrency.
+     */
+    public final int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public final String toString() {
+        return "AdmissionLimit [permitsPerSecond=" + permitsPerSecond + ", burst=" + burst + ", maxConcurrent=" + maxConcurrent + "]";
+    }
+
+}
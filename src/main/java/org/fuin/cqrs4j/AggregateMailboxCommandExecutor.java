@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that executes at most one command per aggregate root at a time. Commands implementing {@link AggregateCommand} wait in a
+ * first-in-first-out mailbox of their aggregate root until the previous command for the same root finished. Commands for different roots
+ * and commands without aggregate root run in parallel. A mailbox only exists while at least one command for its root is running or
+ * waiting, so the memory usage does not grow with the number of aggregates. A command with a {@link DeadlineAware} context leaves the
+ * mailbox with a {@link DeadlineExceededException} if the deadline passes while it waits.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class AggregateMailboxCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final Map<String, Mailbox> mailboxes;
+
+    /**
+     * Constructor with executor to decorate.
+     * 
+     * @param delegate
+     *            Executor that executes the commands.
+     */
+    public AggregateMailboxCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        this.delegate = delegate;
+        this.mailboxes = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        if (!(cmd instanceof AggregateCommand)) {
+            return delegate.execute(ctx, cmd);
+        }
+        final String key = ((AggregateCommand<?, ?>) cmd).getAggregateRootId().asTypedString();
+        final Deadline deadline = Deadline.of(ctx);
+        final Mailbox mailbox = enter(key);
+        try {
+            if (deadline == null) {
+                mailbox.lock.lock();
+            } else {
+                lockBefore(mailbox, deadline);
+            }
+            try {
+                return delegate.execute(ctx, cmd);
+            } finally {
+                mailbox.lock.unlock();
+            }
+        } finally {
+            leave(key);
+        }
+    }
+
+    /**
+     * Returns the number of aggregate roots with running or waiting commands.
+     * 
+     * @return Number of mailboxes.
+     */
+    public final int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    private static void lockBefore(final Mailbox mailbox, final Deadline deadline) throws CommandExecutionFailedException {
+        deadline.check();
+        try {
+            if (!mailbox.lock.tryLock(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)) {
+                throw new DeadlineExceededException("Deadline exceeded while waiting for previous commands of the same aggregate");
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CommandExecutionFailedException(ex);
+        }
+    }
+
+    private Mailbox enter(final String key) {
+        return mailboxes.compute(key, (k, mailbox) -> {
+            final Mailbox result = (mailbox == null) ? new Mailbox() : mailbox;
+            result.users++;
+            return result;
+        });
+    }
+
+    private void leave(final String key) {
+        mailboxes.computeIfPresent(key, (k, mailbox) -> {
+            mailbox.users--;
+            return (mailbox.users == 0) ? null : mailbox;
+        });
+    }
+
+    /**
+     * Queue of commands for one aggregate root. The user count is only modified inside the atomic map operations.
+     */
+    private static final class Mailbox {
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        private int users;
+
+    }
+
+}
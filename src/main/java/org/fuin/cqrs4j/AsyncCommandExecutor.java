@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.EventType;
+
+/**
+ * Executes one or more commands without blocking the caller.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public interface AsyncCommandExecutor<CONTEXT, RESULT, CMD extends Command> {
+
+    /**
+     * Returns a list of commands this executor can handle.
+     * 
+     * @return List of unique command types.
+     */
+    @NotNull
+    public Set<EventType> getCommandTypes();
+
+    /**
+     * Starts executing the given command. The returned future completes exceptionally with the same exceptions that are declared by
+     * {@link CommandExecutor#execute(Object, Command)}.
+     * 
+     * @param ctx
+     *            Context of the execute.
+     * @param cmd
+     *            Command to execute.
+     * 
+     * @return Future with the result.
+     */
+    @NotNull
+    public CompletableFuture<RESULT> executeAsync(@NotNull CONTEXT ctx, @NotNull CMD cmd);
+
+}
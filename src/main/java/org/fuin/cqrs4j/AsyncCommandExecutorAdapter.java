@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Runs a synchronous {@link CommandExecutor} on an {@link Executor}, so it can be used as {@link AsyncCommandExecutor}.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class AsyncCommandExecutorAdapter<CONTEXT, RESULT, CMD extends Command> implements AsyncCommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final Executor executor;
+
+    /**
+     * Constructor with delegate that runs every command in its own thread created by {@link #newPerCommandExecutor()}. The threads are
+     * virtual or daemon threads, so the executor does not need to be shut down.
+     * 
+     * @param delegate
+     *            Synchronous executor to run.
+     */
+    public AsyncCommandExecutorAdapter(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate) {
+        this(delegate, newPerCommandExecutor());
+    }
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Synchronous executor to run.
+     * @param executor
+     *            Executor that runs the commands. Use {@link #newPerCommandExecutor()} for one thread per command.
+     */
+    public AsyncCommandExecutorAdapter(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate, @NotNull final Executor executor) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("executor", executor);
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    @NotNull
+    public final CompletableFuture<RESULT> executeAsync(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+        final CompletableFuture<RESULT> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(delegate.execute(ctx, cmd));
+                } catch (final Throwable ex) {
+                    // Errors as well, otherwise callers waiting for the future would hang forever
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (final RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Creates an executor service that starts a new thread for every command. Virtual threads are used if the runtime supports them,
+     * otherwise a cached pool of daemon threads.
+     * 
+     * @return New executor service.
+     */
+    @NotNull
+    public static ExecutorService newPerCommandExecutor() {
+        try {
+            // Looked up by reflection, because virtual threads are not available with the minimum supported Java version
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (final NoSuchMethodException | IllegalAccessException | InvocationTargetException ex) {
+            return Executors.newCachedThreadPool(new NamedThreadFactory(AsyncCommandExecutorAdapter.class.getSimpleName()));
+        }
+    }
+
+}
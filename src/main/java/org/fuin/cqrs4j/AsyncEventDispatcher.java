@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Event dispatcher that hands the events over to other threads, so the handlers may still process them after the dispatch methods
+ * returned. Callers that need to know when the events were handled, for example before storing a projection position, wait with
+ * {@link #awaitDrained(long, TimeUnit)}.
+ */
+public interface AsyncEventDispatcher extends EventDispatcher {
+
+    /**
+     * Waits until all events dispatched before the call were processed by all handlers. Events dispatched concurrently may or may not be
+     * included.
+     * 
+     * @param timeout
+     *            Maximum time to wait.
+     * @param unit
+     *            Unit of the timeout.
+     * 
+     * @return TRUE if all events were processed or FALSE if the timeout elapsed before or the thread was interrupted.
+     */
+    public boolean awaitDrained(long timeout, @NotNull TimeUnit unit);
+
+}
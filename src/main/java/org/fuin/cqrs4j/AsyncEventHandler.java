@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.concurrent.CompletionStage;
+
+import org.fuin.ddd4j.ddd.Event;
+
+/**
+ * Event handler that does not block the calling thread. The returned stage completes when the view was modified. If used with a
+ * synchronous dispatcher, {@link #handle(Event)} waits for the completion.
+ * 
+ * @param <TYPE>
+ *            Event type.
+ */
+public interface AsyncEventHandler<TYPE extends Event> extends EventHandler<TYPE> {
+
+    /**
+     * Starts modifying the view using the given event.
+     * 
+     * @param event
+     *            Event to use.
+     * 
+     * @return Stage that completes after the event was handled.
+     */
+    public CompletionStage<Void> handleAsync(TYPE event);
+
+    @Override
+    public default void handle(final TYPE event) {
+        handleAsync(event).toCompletableFuture().join();
+    }
+
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Passes events to {@link AsyncEventHandler} instances without waiting for the handlers to complete. The projection position is only
+ * updated to the number following the highest event for which this and all earlier events completed, so a restart never skips an
+ * unfinished event. The distance between the oldest unfinished event and the newest started event is limited by a window. The dispatch
+ * blocks if the window is full.<br>
+ * <br>
+ * If a handler fails, the position is not advanced anymore and all further calls throw an {@link IllegalStateException}. After a restart
+ * the processing continues with the failed event.
+ */
+public final class AsyncEventProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncEventProcessor.class);
+
+    @SuppressWarnings("rawtypes")
+    private final Map<String, List<AsyncEventHandler>> handlers;
+
+    private final Set<EventType> types;
+
+    private final ProjectionService projectionService;
+
+    private final StreamId streamId;
+
+    private final int maxInFlight;
+
+    private final Semaphore window;
+
+    private final LowWatermark watermark;
+
+    private long nextEventNumber;
+
+    private volatile Throwable failure;
+
+    /**
+     * Constructor with array of event handlers. The start position is read from the projection service.
+     * 
+     * @param projectionService
+     *            Service used to store the position.
+     * @param streamId
+     *            Unique ID of the projection stream.
+     * @param maxInFlight
+     *            Maximum distance between the oldest unfinished and the newest started event.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public AsyncEventProcessor(@NotNull final ProjectionService projectionService, @NotNull final StreamId streamId, final int maxInFlight,
+            @NotNull final AsyncEventHandler... eventHandlers) {
+        this(projectionService, streamId, maxInFlight, Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers. The start position is read from the projection service.
+     * 
+     * @param projectionService
+     *            Service used to store the position.
+     * @param streamId
+     *            Unique ID of the projection stream.
+     * @param maxInFlight
+     *            Maximum distance between the oldest unfinished and the newest started event.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public AsyncEventProcessor(@NotNull final ProjectionService projectionService, @NotNull final StreamId streamId, final int maxInFlight,
+            @NotNull final List<AsyncEventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("projectionService", projectionService);
+        Contract.requireArgNotNull("streamId", streamId);
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("The argument 'maxInFlight' must be greater than zero, but was: " + maxInFlight);
+        }
+        if (eventHandlers.isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventHandlers' cannot be an empty list");
+        }
+        this.handlers = new HashMap<>();
+        final Set<EventType> eventTypes = new HashSet<>();
+        for (final AsyncEventHandler eventHandler : eventHandlers) {
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            eventTypes.add(eventHandler.getEventType());
+            handlers.computeIfAbsent(eventHandler.getEventType().asBaseType(), key -> new ArrayList<>()).add(eventHandler);
+        }
+        this.types = Collections.unmodifiableSet(eventTypes);
+        this.projectionService = projectionService;
+        this.streamId = streamId;
+        this.maxInFlight = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+        this.nextEventNumber = projectionService.readProjectionPosition(streamId);
+        this.watermark = new LowWatermark(nextEventNumber, maxInFlight);
+    }
+
+    /**
+     * Returns a set of all known types.
+     * 
+     * @return All known event types.
+     */
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return types;
+    }
+
+    /**
+     * Starts handling all events of a slice. The slice must start with the number following the last event passed to this processor.
+     * 
+     * @param slice
+     *            Slice read from the event store.
+     */
+    public final void process(@NotNull final StreamEventsSlice slice) {
+        Contract.requireArgNotNull("slice", slice);
+        long eventNumber = slice.getFromEventNumber();
+        for (final CommonEvent commonEvent : slice.getEvents()) {
+            process(commonEvent, eventNumber);
+            eventNumber++;
+        }
+    }
+
+    /**
+     * Starts handling an event. Blocks while the window is full.
+     * 
+     * @param commonEvent
+     *            Event to handle.
+     * @param eventNumber
+     *            Number of the event in the stream. Must be the number following the last event passed to this processor.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public final void process(@NotNull final CommonEvent commonEvent, final long eventNumber) {
+        Contract.requireArgNotNull("commonEvent", commonEvent);
+        requireNotFailed();
+        try {
+            window.acquire();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free slot", ex);
+        }
+        // The number is only reserved after all checks passed, as every reserved number has to complete for the watermark to advance
+        synchronized (this) {
+            try {
+                requireNotFailed();
+                if (eventNumber != nextEventNumber) {
+                    throw new IllegalArgumentException("Expected event number " + nextEventNumber + ", but was: " + eventNumber);
+                }
+            } catch (final RuntimeException ex) {
+                window.release();
+                throw ex;
+            }
+            nextEventNumber++;
+        }
+
+        final List<AsyncEventHandler> eventHandlers = handlers.get(commonEvent.getDataType().asBaseType());
+        if (eventHandlers == null) {
+            completed(eventNumber, null);
+            return;
+        }
+        final Event event;
+        try {
+            event = (Event) commonEvent.getData();
+        } catch (final RuntimeException ex) {
+            completed(eventNumber, ex);
+            throw ex;
+        }
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[eventHandlers.size()];
+        for (int i = 0; i < futures.length; i++) {
+            try {
+                futures[i] = eventHandlers.get(i).handleAsync(event).toCompletableFuture();
+            } catch (final RuntimeException ex) {
+                futures[i] = new CompletableFuture<>();
+                futures[i].completeExceptionally(ex);
+            }
+        }
+        CompletableFuture.allOf(futures).whenComplete((result, ex) -> completed(eventNumber, ex));
+    }
+
+    /**
+     * Returns the number of the first event that did not complete. This is the position that was last stored.
+     * 
+     * @return Next event number to read after a restart.
+     */
+    public final synchronized long getPosition() {
+        return watermark.getLow();
+    }
+
+    /**
+     * Waits until all started events completed.
+     * 
+     * @param timeout
+     *            Maximum time to wait.
+     * @param unit
+     *            Unit of the timeout.
+     * 
+     * @return TRUE if all events completed or FALSE if the timeout elapsed or a handler failed before.
+     * 
+     * @throws InterruptedException
+     *             The thread was interrupted while waiting.
+     */
+    public final synchronized boolean awaitCompletion(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+        Contract.requireArgNotNull("unit", unit);
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        while (watermark.getLow() < nextEventNumber && failure == null) {
+            final long remaining = end - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return failure == null;
+    }
+
+    private synchronized void completed(final long eventNumber, final Throwable ex) {
+        if (failure != null) {
+            return;
+        }
+        if (ex != null) {
+            LOG.error("Failed to handle event " + eventNumber + " - Position will not be advanced anymore", ex);
+            failure = ex;
+            // Wake up callers waiting for a slot, they will fail after acquiring it
+            window.release(maxInFlight);
+            notifyAll();
+            return;
+        }
+        final int advanced = watermark.complete(eventNumber);
+        if (advanced > 0) {
+            projectionService.updateProjectionPosition(streamId, watermark.getLow());
+            window.release(advanced);
+            notifyAll();
+        }
+    }
+
+    private void requireNotFailed() {
+        final Throwable ex = failure;
+        if (ex != null) {
+            throw new IllegalStateException("A handler failed", ex);
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+
+/**
+ * Command executor that is able to execute several commands for the same aggregate with a single load and append.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public interface BatchCommandExecutor<CONTEXT, RESULT, CMD extends Command> extends CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    /**
+     * Executes commands that all target the same aggregate root. An exception fails all commands of the batch. Implementations that want
+     * to reject single commands should return an error result for them instead.
+     * 
+     * @param contexts
+     *            Contexts of the commands in the same order as the commands.
+     * @param cmds
+     *            Commands to execute in the given order.
+     * 
+     * @return One result per command in the same order as the commands.
+     * 
+     * @throws AggregateVersionConflictException
+     *             There is a conflict between an expected and an actual version for the aggregate targeted by the commands.
+     * @throws AggregateNotFoundException
+     *             The aggregate targeted by the commands with a given type and identifier was not found in the repository.
+     * @throws AggregateVersionNotFoundException
+     *             The requested version for the aggregate targeted by the commands does not exist.
+     * @throws AggregateDeletedException
+     *             The aggregate targeted by the commands was deleted from the repository.
+     * @throws AggregateAlreadyExistsException
+     *             The aggregate targeted by the commands already exists when trying to create it.
+     * @throws CommandExecutionFailedException
+     *             Other checked exceptions are wrapped into this one.
+     */
+    @NotNull
+    public List<RESULT> executeBatch(@NotNull List<CONTEXT> contexts, @NotNull List<CMD> cmds) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException;
+
+}
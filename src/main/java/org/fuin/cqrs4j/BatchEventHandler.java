@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+
+/**
+ * Event handler that is able to process multiple events of the same type at once. Dispatchers that support batches pass contiguous runs of
+ * events to {@link #handleBatch(List)}, single events are still passed to {@link #handle(Event)}.
+ * 
+ * @param <TYPE>
+ *            Event type.
+ */
+public interface BatchEventHandler<TYPE extends Event> extends EventHandler<TYPE> {
+
+    /**
+     * Modifies the view using the given events. The list is only valid during the call and must not be stored.<br>
+     * <br>
+     * If an event fails after others were already applied, a {@link BatchEventHandlerException} with the position of the failed event
+     * has to be thrown. Any other exception means that none of the events was applied, so all of them may be passed again.
+     * 
+     * @param events
+     *            Events to use in the order they occurred.
+     */
+    public void handleBatch(@NotNull List<TYPE> events);
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A {@link BatchEventHandler} failed in the middle of a batch. All events before the failed one were applied, the failed one and all
+ * events after it were not.
+ */
+public final class BatchEventHandlerException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int failedIndex;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param failedIndex
+     *            Position of the failed event in the batch.
+     * @param cause
+     *            Failure of the event.
+     */
+    public BatchEventHandlerException(final int failedIndex, @NotNull final Throwable cause) {
+        super("Failed to handle event #" + failedIndex + " of the batch", cause);
+        if (failedIndex < 0) {
+            throw new IllegalArgumentException("The argument 'failedIndex' cannot be negative, but was: " + failedIndex);
+        }
+        this.failedIndex = failedIndex;
+    }
+
+    /**
+     * Returns the position of the failed event in the batch.
+     * 
+     * @return Index of the first event that was not applied.
+     */
+    public final int getFailedIndex() {
+        return failedIndex;
+    }
+
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that collects concurrent commands for the same aggregate root and passes them with a single call to a
+ * {@link BatchCommandExecutor}. The first caller of an aggregate root becomes the leader and waits a short window or until the maximum
+ * batch size is reached. Then it executes the batch on its own thread and hands the result to every waiting caller. Commands that arrive
+ * while a batch is executed form the next batch, which is started by the first of them after the previous batch finished. So there is
+ * never more than one batch per aggregate root at a time. Commands with a {@link DeadlineAware} context whose deadline passed while
+ * waiting are removed from the batch and fail with a {@link DeadlineExceededException}. Commands that do not implement
+ * {@link AggregateCommand} are executed directly.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class BatchingCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final BatchCommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final int maxBatchSize;
+
+    private final long windowNanos;
+
+    private final Map<String, Group<CONTEXT, RESULT, CMD>> groups;
+
+    private final AtomicLong batches;
+
+    private final AtomicLong commands;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor for the batches.
+     * @param maxBatchSize
+     *            Maximum number of commands in a batch.
+     * @param windowMillis
+     *            Maximum time the first command of a batch waits for further commands.
+     */
+    public BatchingCommandExecutor(@NotNull final BatchCommandExecutor<CONTEXT, RESULT, CMD> delegate, final int maxBatchSize,
+            final long windowMillis) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The argument 'maxBatchSize' must be greater than zero, but was: " + maxBatchSize);
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("The argument 'windowMillis' cannot be negative, but was: " + windowMillis);
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.groups = new ConcurrentHashMap<>();
+        this.batches = new AtomicLong();
+        this.commands = new AtomicLong();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        if (!(cmd instanceof AggregateCommand)) {
+            return delegate.execute(ctx, cmd);
+        }
+        final String key = ((AggregateCommand<?, ?>) cmd).getAggregateRootId().asTypedString();
+        final Entry<CONTEXT, RESULT, CMD> entry = new Entry<>(ctx, cmd);
+        final Group<CONTEXT, RESULT, CMD> group = groups.compute(key, (k, existing) -> {
+            final Group<CONTEXT, RESULT, CMD> result = (existing == null) ? new Group<>() : existing;
+            synchronized (result) {
+                result.pending.add(entry);
+                if (!result.running) {
+                    result.running = true;
+                    entry.state = Entry.LEADER;
+                }
+                result.notifyAll();
+            }
+            return result;
+        });
+
+        synchronized (group) {
+            while (entry.state == Entry.WAITING) {
+                try {
+                    group.wait();
+                } catch (final InterruptedException ex) {
+                    // The batch may already contain the command, so the result is awaited anyway
+                    Thread.currentThread().interrupt();
+                    waitUninterruptibly(group, entry);
+                }
+            }
+        }
+        if (entry.state == Entry.LEADER) {
+            lead(key, group);
+        }
+        return entry.getResult();
+    }
+
+    /**
+     * Returns the number of batches passed to the delegate.
+     * 
+     * @return Number of batches.
+     */
+    public final long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Returns the number of commands passed to the delegate as part of a batch.
+     * 
+     * @return Number of batched commands.
+     */
+    public final long getBatchedCommandCount() {
+        return commands.get();
+    }
+
+    private void lead(final String key, final Group<CONTEXT, RESULT, CMD> group) {
+        final List<Entry<CONTEXT, RESULT, CMD>> batch;
+        synchronized (group) {
+            final long end = System.nanoTime() + windowNanos;
+            long remaining = windowNanos;
+            while (group.pending.size() < maxBatchSize && remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(group, remaining);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = end - System.nanoTime();
+            }
+            final int size = Math.min(maxBatchSize, group.pending.size());
+            batch = new ArrayList<>(group.pending.subList(0, size));
+            group.pending.subList(0, size).clear();
+        }
+
+        executeBatch(batch);
+
+        groups.computeIfPresent(key, (k, existing) -> {
+            synchronized (existing) {
+                existing.notifyAll();
+                if (existing.pending.isEmpty()) {
+                    existing.running = false;
+                    return null;
+                }
+                existing.pending.get(0).state = Entry.LEADER;
+                return existing;
+            }
+        });
+    }
+
+    private void executeBatch(final List<Entry<CONTEXT, RESULT, CMD>> candidates) {
+        final List<Entry<CONTEXT, RESULT, CMD>> batch = new ArrayList<>(candidates.size());
+        for (final Entry<CONTEXT, RESULT, CMD> entry : candidates) {
+            final Deadline deadline = Deadline.of(entry.ctx);
+            if (deadline != null && deadline.isExpired()) {
+                entry.failure = new DeadlineExceededException("Deadline exceeded while waiting for the batch");
+            } else {
+                batch.add(entry);
+            }
+        }
+        if (!batch.isEmpty()) {
+            executeEntries(batch);
+        }
+        // State is changed and published to the waiting callers when the group monitor is taken
+        for (final Entry<CONTEXT, RESULT, CMD> entry : candidates) {
+            entry.state = Entry.DONE;
+        }
+    }
+
+    private void executeEntries(final List<Entry<CONTEXT, RESULT, CMD>> batch) {
+        final List<CONTEXT> contexts = new ArrayList<>(batch.size());
+        final List<CMD> cmds = new ArrayList<>(batch.size());
+        for (final Entry<CONTEXT, RESULT, CMD> entry : batch) {
+            contexts.add(entry.ctx);
+            cmds.add(entry.cmd);
+        }
+        batches.incrementAndGet();
+        commands.addAndGet(batch.size());
+        List<RESULT> results = null;
+        Throwable failure = null;
+        try {
+            results = delegate.executeBatch(contexts, cmds);
+            if (results == null || results.size() != batch.size()) {
+                failure = new IllegalStateException("Expected " + batch.size() + " results, but got: "
+                        + (results == null ? null : results.size()));
+            }
+        } catch (final Exception | Error ex) {
+            failure = ex;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            final Entry<CONTEXT, RESULT, CMD> entry = batch.get(i);
+            if (failure == null) {
+                entry.result = results.get(i);
+            } else {
+                entry.failure = failure;
+            }
+        }
+    }
+
+    private static void waitUninterruptibly(final Object group, final Entry<?, ?, ?> entry) {
+        boolean interrupted = false;
+        while (entry.state == Entry.WAITING) {
+            try {
+                group.wait();
+            } catch (final InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Commands waiting for the same aggregate root. Guarded by its own monitor.
+     */
+    private static final class Group<CONTEXT, RESULT, CMD extends Command> {
+
+        private final List<Entry<CONTEXT, RESULT, CMD>> pending = new ArrayList<>();
+
+        private boolean running;
+
+    }
+
+    /**
+     * A single command and its outcome.
+     */
+    private static final class Entry<CONTEXT, RESULT, CMD extends Command> {
+
+        private static final int WAITING = 0;
+
+        private static final int LEADER = 1;
+
+        private static final int DONE = 2;
+
+        private final CONTEXT ctx;
+
+        private final CMD cmd;
+
+        private volatile int state;
+
+        private RESULT result;
+
+        private Throwable failure;
+
+        Entry(final CONTEXT ctx, final CMD cmd) {
+            this.ctx = ctx;
+            this.cmd = cmd;
+        }
+
+        RESULT getResult() throws AggregateVersionConflictException, AggregateNotFoundException, AggregateVersionNotFoundException,
+                AggregateDeletedException, AggregateAlreadyExistsException, CommandExecutionFailedException {
+            if (failure == null) {
+                return result;
+            }
+            CommandFailures.rethrow(failure);
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatcher that isolates the event handlers from each other. Every handler has its own single threaded executor with a bounded queue,
+ * so a slow handler only fills its own queue and does not delay the other handlers of the same event type. The behavior in case of a full
+ * queue is defined by a {@link QueueFullStrategy}. Events are handled asynchronously and in order per handler. Exceptions thrown by a
+ * handler are logged and the next event is processed.
+ */
+public final class BulkheadEventDispatcher implements AsyncEventDispatcher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkheadEventDispatcher.class);
+
+    private final Map<EventType, Bulkhead[]> bulkheads;
+
+    private final List<Bulkhead> bulkheadList;
+
+    private final Set<String> typeNames;
+
+    private final QueueFullStrategy queueFullStrategy;
+
+    /**
+     * Constructor with array of event handlers.
+     * 
+     * @param queueCapacity
+     *            Maximum number of events queued per handler.
+     * @param queueFullStrategy
+     *            Behavior if a queue is full.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public BulkheadEventDispatcher(final int queueCapacity, @NotNull final QueueFullStrategy queueFullStrategy,
+            @NotNull final EventHandler... eventHandlers) {
+        this(queueCapacity, queueFullStrategy, Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers.
+     * 
+     * @param queueCapacity
+     *            Maximum number of events queued per handler.
+     * @param queueFullStrategy
+     *            Behavior if a queue is full.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public BulkheadEventDispatcher(final int queueCapacity, @NotNull final QueueFullStrategy queueFullStrategy,
+            @NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("queueFullStrategy", queueFullStrategy);
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("The argument 'queueCapacity' must be greater than zero, but was: " + queueCapacity);
+        }
+        if (eventHandlers.isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventHandlers' cannot be an empty list");
+        }
+        final Map<EventType, Bulkhead[]> map = new HashMap<>();
+        final Bulkhead[] all = new Bulkhead[eventHandlers.size()];
+        for (int i = 0; i < all.length; i++) {
+            final EventHandler eventHandler = eventHandlers.get(i);
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            all[i] = new Bulkhead(eventHandler, queueCapacity, queueFullStrategy);
+            final Bulkhead[] existing = map.get(eventHandler.getEventType());
+            if (existing == null) {
+                map.put(eventHandler.getEventType(), new Bulkhead[] { all[i] });
+            } else {
+                final Bulkhead[] extended = Arrays.copyOf(existing, existing.length + 1);
+                extended[existing.length] = all[i];
+                map.put(eventHandler.getEventType(), extended);
+            }
+        }
+        this.queueFullStrategy = queueFullStrategy;
+        this.bulkheads = Collections.unmodifiableMap(map);
+        this.bulkheadList = Collections.unmodifiableList(Arrays.asList(all));
+        this.typeNames = new HashSet<>();
+        for (final EventType eventType : map.keySet()) {
+            typeNames.add(eventType.asBaseType());
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return bulkheads.keySet();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        for (final CommonEvent commonEvent : commonEvents) {
+            if (typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                dispatchEvent((Event) commonEvent.getData());
+            }
+        }
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        for (final Event event : events) {
+            dispatchEvent(event);
+        }
+    }
+
+    /**
+     * Queues the event for all handlers of its type. Depending on the {@link QueueFullStrategy} the call may block or throw a
+     * {@link RejectedExecutionException} if the queue of a handler is full. With {@link QueueFullStrategy#FAIL} the queues of all
+     * handlers are checked before the event is queued, so it is either queued for all handlers or for none.
+     * 
+     * @param event
+     *            Event to dispatch.
+     */
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+
+        Contract.requireArgNotNull("event", event);
+
+        final Bulkhead[] handlers = bulkheads.get(event.getEventType());
+        if (handlers == null) {
+            return;
+        }
+        if (queueFullStrategy == QueueFullStrategy.FAIL) {
+            // Only producers fill the queues, so the capacity checked here cannot shrink before the event is queued
+            synchronized (this) {
+                for (final Bulkhead bulkhead : handlers) {
+                    if (bulkhead.executor.isShutdown() || bulkhead.executor.getQueue().remainingCapacity() == 0) {
+                        throw new RejectedExecutionException(
+                                "Queue of handler " + bulkhead.handler.getClass().getName() + " is full or the dispatcher was closed");
+                    }
+                }
+                for (final Bulkhead bulkhead : handlers) {
+                    bulkhead.submit(event);
+                }
+            }
+        } else {
+            for (final Bulkhead bulkhead : handlers) {
+                bulkhead.submit(event);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting in the queue of every handler.
+     * 
+     * @return Queue depth by handler in registration order.
+     */
+    @NotNull
+    public final Map<EventHandler<?>, Integer> getQueueDepths() {
+        final Map<EventHandler<?>, Integer> depths = new LinkedHashMap<>();
+        for (final Bulkhead bulkhead : bulkheadList) {
+            depths.put(bulkhead.handler, bulkhead.executor.getQueue().size());
+        }
+        return depths;
+    }
+
+    /**
+     * Returns the number of events that were removed from a full queue using {@link QueueFullStrategy#DROP_OLDEST}.
+     * 
+     * @return Dropped events by handler in registration order.
+     */
+    @NotNull
+    public final Map<EventHandler<?>, Long> getDroppedEventCounts() {
+        final Map<EventHandler<?>, Long> dropped = new LinkedHashMap<>();
+        for (final Bulkhead bulkhead : bulkheadList) {
+            dropped.put(bulkhead.handler, bulkhead.dropped.get());
+        }
+        return dropped;
+    }
+
+    @Override
+    public final boolean awaitDrained(final long timeout, @NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("unit", unit);
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        final long[] targets = new long[bulkheadList.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = bulkheadList.get(i).submitted.get();
+        }
+        for (int i = 0; i < targets.length; i++) {
+            final Bulkhead bulkhead = bulkheadList.get(i);
+            while (bulkhead.completed.get() < targets[i]) {
+                if (System.nanoTime() - end >= 0) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting new events and waits until all handlers processed their queued events.
+     */
+    @Override
+    public final void close() {
+        for (final Bulkhead bulkhead : bulkheadList) {
+            bulkhead.executor.shutdown();
+        }
+        try {
+            for (final Bulkhead bulkhead : bulkheadList) {
+                if (!bulkhead.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOG.warn("Handler " + bulkhead.handler.getClass().getName() + " did not terminate in time");
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executor with a bounded queue for a single handler.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static final class Bulkhead {
+
+        private final EventHandler handler;
+
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicLong dropped;
+
+        private final AtomicLong submitted;
+
+        private final AtomicLong completed;
+
+        Bulkhead(final EventHandler handler, final int queueCapacity, final QueueFullStrategy queueFullStrategy) {
+            this.handler = handler;
+            this.dropped = new AtomicLong();
+            this.submitted = new AtomicLong();
+            this.completed = new AtomicLong();
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    new NamedThreadFactory(BulkheadEventDispatcher.class.getSimpleName() + "-" + handlerName(handler)),
+                    rejectionHandler(queueFullStrategy));
+        }
+
+        private static String handlerName(final EventHandler handler) {
+            final String simpleName = handler.getClass().getSimpleName();
+            if (simpleName.isEmpty()) {
+                // Anonymous classes have no simple name
+                return handler.getClass().getName();
+            }
+            return simpleName;
+        }
+
+        void submit(final Event event) {
+            executor.execute(() -> {
+                try {
+                    handler.handle(event);
+                } catch (final RuntimeException ex) {
+                    LOG.error("Handler " + handler.getClass().getName() + " failed to handle event " + event.getEventId(), ex);
+                } finally {
+                    completed.incrementAndGet();
+                }
+            });
+            submitted.incrementAndGet();
+        }
+
+        private RejectedExecutionHandler rejectionHandler(final QueueFullStrategy queueFullStrategy) {
+            switch (queueFullStrategy) {
+            case BLOCK:
+                return (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("The dispatcher was already closed");
+                    }
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for queue space", ex);
+                    }
+                };
+            case DROP_OLDEST:
+                return (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("The dispatcher was already closed");
+                    }
+                    if (pool.getQueue().poll() != null) {
+                        dropped.incrementAndGet();
+                        completed.incrementAndGet();
+                    }
+                    pool.execute(runnable);
+                };
+            case FAIL:
+                return (runnable, pool) -> {
+                    throw new RejectedExecutionException(
+                            "Queue of handler " + handler.getClass().getName() + " is full or the dispatcher was closed");
+                };
+            default:
+                throw new IllegalArgumentException("Unknown queue full strategy: " + queueFullStrategy);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches events read from a stream and stores the projection position. The position is not written after every call, but only if
+ * a given number of events was dispatched since the last write, a given time elapsed or {@link #flush()} is called. A position is only
+ * remembered after the events before it were dispatched without an exception, so the stored position never passes an event that was not
+ * handled. After a restart, the events after the stored position are dispatched again and the handlers have to be idempotent.<br>
+ * <br>
+ * The processor has no timer of its own. The time limit is only checked when events are processed, so an idle projection has to call
+ * {@link #flushIfDue()} periodically, for example with a {@link java.util.concurrent.ScheduledExecutorService}.<br>
+ * <br>
+ * An {@link AsyncEventDispatcher} returns before the handlers processed the events. The processor therefore waits with
+ * {@link AsyncEventDispatcher#awaitDrained(long, TimeUnit)} before it stores a position and keeps the position pending if the handlers
+ * did not finish in time. Such dispatchers log and skip events a handler failed on, so the stored position only guarantees that the
+ * events were processed, not that every handler succeeded.
+ */
+public final class CheckpointingEventProcessor implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckpointingEventProcessor.class);
+
+    /** Milliseconds to wait for an {@link AsyncEventDispatcher} before storing a position if no other value is given. */
+    public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 60000;
+
+    private final EventDispatcher dispatcher;
+
+    private final ProjectionService projectionService;
+
+    private final StreamId streamId;
+
+    private final int maxEvents;
+
+    private final long maxIntervalMillis;
+
+    private final Clock clock;
+
+    private final long drainTimeoutMillis;
+
+    private Long pendingPosition;
+
+    private int pendingEvents;
+
+    private long lastFlush;
+
+    /**
+     * Constructor using the system clock.
+     * 
+     * @param dispatcher
+     *            Dispatcher for the events.
+     * @param projectionService
+     *            Service used to store the position.
+     * @param streamId
+     *            Unique ID of the projection stream.
+     * @param maxEvents
+     *            Number of dispatched events after which the position is stored.
+     * @param maxIntervalMillis
+     *            Milliseconds after the last write after which the position is stored.
+     */
+    public CheckpointingEventProcessor(@NotNull final EventDispatcher dispatcher, @NotNull final ProjectionService projectionService,
+            @NotNull final StreamId streamId, final int maxEvents, final long maxIntervalMillis) {
+        this(dispatcher, projectionService, streamId, maxEvents, maxIntervalMillis, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param dispatcher
+     *            Dispatcher for the events.
+     * @param projectionService
+     *            Service used to store the position.
+     * @param streamId
+     *            Unique ID of the projection stream.
+     * @param maxEvents
+     *            Number of dispatched events after which the position is stored.
+     * @param maxIntervalMillis
+     *            Milliseconds after the last write after which the position is stored.
+     * @param clock
+     *            Clock used to measure the time since the last write.
+     */
+    public CheckpointingEventProcessor(@NotNull final EventDispatcher dispatcher, @NotNull final ProjectionService projectionService,
+            @NotNull final StreamId streamId, final int maxEvents, final long maxIntervalMillis, @NotNull final Clock clock) {
+        this(dispatcher, projectionService, streamId, maxEvents, maxIntervalMillis, DEFAULT_DRAIN_TIMEOUT_MILLIS, clock);
+    }
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param dispatcher
+     *            Dispatcher for the events.
+     * @param projectionService
+     *            Service used to store the position.
+     * @param streamId
+     *            Unique ID of the projection stream.
+     * @param maxEvents
+     *            Number of dispatched events after which the position is stored.
+     * @param maxIntervalMillis
+     *            Milliseconds after the last write after which the position is stored.
+     * @param drainTimeoutMillis
+     *            Maximum milliseconds to wait for an {@link AsyncEventDispatcher} to process the events before the position is stored.
+     * @param clock
+     *            Clock used to measure the time since the last write.
+     */
+    public CheckpointingEventProcessor(@NotNull final EventDispatcher dispatcher, @NotNull final ProjectionService projectionService,
+            @NotNull final StreamId streamId, final int maxEvents, final long maxIntervalMillis, final long drainTimeoutMillis,
+            @NotNull final Clock clock) {
+        super();
+        Contract.requireArgNotNull("dispatcher", dispatcher);
+        Contract.requireArgNotNull("projectionService", projectionService);
+        Contract.requireArgNotNull("streamId", streamId);
+        Contract.requireArgNotNull("clock", clock);
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("The argument 'maxEvents' must be greater than zero, but was: " + maxEvents);
+        }
+        if (maxIntervalMillis < 0) {
+            throw new IllegalArgumentException("The argument 'maxIntervalMillis' cannot be negative, but was: " + maxIntervalMillis);
+        }
+        if (drainTimeoutMillis < 0) {
+            throw new IllegalArgumentException("The argument 'drainTimeoutMillis' cannot be negative, but was: " + drainTimeoutMillis);
+        }
+        this.dispatcher = dispatcher;
+        this.projectionService = projectionService;
+        this.streamId = streamId;
+        this.maxEvents = maxEvents;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.clock = clock;
+        this.lastFlush = clock.millis();
+    }
+
+    /**
+     * Dispatches the events of a slice and remembers the next event number of the slice as new position.
+     * 
+     * @param slice
+     *            Slice read from the event store.
+     */
+    public final void process(@NotNull final StreamEventsSlice slice) {
+        Contract.requireArgNotNull("slice", slice);
+        process(slice.getEvents(), slice.getNextEventNumber());
+    }
+
+    /**
+     * Dispatches the events and remembers the given number as new position. The position is stored if enough events were dispatched or
+     * enough time elapsed since the last write. If the dispatcher throws an exception, the position is not changed.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     * @param nextEventNumber
+     *            Number of the event following the last one in the list.
+     */
+    public final synchronized void process(@NotNull final List<CommonEvent> commonEvents, final long nextEventNumber) {
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        if (!commonEvents.isEmpty()) {
+            dispatcher.dispatchCommonEvents(commonEvents);
+        }
+        pendingPosition = nextEventNumber;
+        pendingEvents = pendingEvents + commonEvents.size();
+        if (pendingEvents >= maxEvents || clock.millis() - lastFlush >= maxIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Stores the position of the last successfully dispatched events if it was not already stored.
+     */
+    public final synchronized void flush() {
+        if (pendingPosition != null) {
+            if (dispatcher instanceof AsyncEventDispatcher
+                    && !((AsyncEventDispatcher) dispatcher).awaitDrained(drainTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Events before position " + pendingPosition + " of " + streamId.asString()
+                        + " were not processed in time - Position not stored");
+                return;
+            }
+            projectionService.updateProjectionPosition(streamId, pendingPosition);
+            pendingPosition = null;
+            pendingEvents = 0;
+        }
+        lastFlush = clock.millis();
+    }
+
+    /**
+     * Stores the position if the time limit elapsed since the last write. Should be called periodically, so the position of a projection
+     * that receives no new events is stored in time.
+     */
+    public final synchronized void flushIfDue() {
+        if (clock.millis() - lastFlush >= maxIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the number of dispatched events with a position that was not yet stored.
+     * 
+     * @return Number of events since the last write.
+     */
+    public final synchronized int getPendingEventCount() {
+        return pendingEvents;
+    }
+
+    /**
+     * Stores the position of the last successfully dispatched events.
+     */
+    @Override
+    public final void close() {
+        flush();
+    }
+
+}
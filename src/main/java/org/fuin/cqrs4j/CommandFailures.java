@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+
+/**
+ * Helper for passing the failure of a command execution that happened on another thread to the caller.
+ */
+final class CommandFailures {
+
+    private CommandFailures() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Throws the given failure with the exception types declared by {@link CommandExecutor#execute(Object, Command)}. Other checked
+     * exceptions are wrapped into a {@link CommandExecutionFailedException}.
+     * 
+     * @param failure
+     *            Exception or error to throw.
+     * 
+     * @throws AggregateVersionConflictException
+     *             The failure has this type.
+     * @throws AggregateNotFoundException
+     *             The failure has this type.
+     * @throws AggregateVersionNotFoundException
+     *             The failure has this type.
+     * @throws AggregateDeletedException
+     *             The failure has this type.
+     * @throws AggregateAlreadyExistsException
+     *             The failure has this type.
+     * @throws CommandExecutionFailedException
+     *             The failure has this type or is another checked exception.
+     */
+    static void rethrow(final Throwable failure) throws AggregateVersionConflictException, AggregateNotFoundException,
+            AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException, CommandExecutionFailedException {
+        if (failure instanceof AggregateVersionConflictException) {
+            throw (AggregateVersionConflictException) failure;
+        }
+        if (failure instanceof AggregateNotFoundException) {
+            throw (AggregateNotFoundException) failure;
+        }
+        if (failure instanceof AggregateVersionNotFoundException) {
+            throw (AggregateVersionNotFoundException) failure;
+        }
+        if (failure instanceof AggregateDeletedException) {
+            throw (AggregateDeletedException) failure;
+        }
+        if (failure instanceof AggregateAlreadyExistsException) {
+            throw (AggregateAlreadyExistsException) failure;
+        }
+        if (failure instanceof CommandExecutionFailedException) {
+            throw (CommandExecutionFailedException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new CommandExecutionFailedException((Exception) failure);
+    }
+
+}
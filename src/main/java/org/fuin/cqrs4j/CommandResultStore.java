@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Stores the results of completed command executions by the unique identifier of the command. Implementations may keep the results in
+ * memory or in a persistent storage and are free to forget results after some time.
+ * 
+ * @param <RESULT>
+ *            Result of the command execution.
+ */
+public interface CommandResultStore<RESULT> {
+
+    /**
+     * Returns the result of a command.
+     * 
+     * @param commandId
+     *            Unique identifier of the command.
+     * 
+     * @return Result or NULL if the command is unknown or the result was already evicted.
+     */
+    public RESULT find(@NotNull UUID commandId);
+
+    /**
+     * Stores the result of a command. An existing result for the same command is replaced.
+     * 
+     * @param commandId
+     *            Unique identifier of the command.
+     * @param result
+     *            Result of the command execution.
+     */
+    public void store(@NotNull UUID commandId, @NotNull RESULT result);
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable registry with all event handlers. Every event type is mapped to a dense slot number once at construction time and the handlers
+ * are kept in arrays. Dispatching a single event requires one lookup of the event type name and does not allocate any objects. Behaves
+ * otherwise like {@link SimpleEventDispatcher}.
+ */
+public final class CompiledEventDispatcher implements EventDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledEventDispatcher.class);
+
+    private final EventHandlerTable table;
+
+    private final AtomicLong skippedCommonEvents;
+
+    /**
+     * Constructor with array of event handlers.
+     * 
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public CompiledEventDispatcher(@NotNull final EventHandler... eventHandlers) {
+        this(Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers.
+     * 
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public CompiledEventDispatcher(@NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        if (eventHandlers.isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventHandlers' cannot be an empty list");
+        }
+        this.table = new EventHandlerTable(eventHandlers);
+        this.skippedCommonEvents = new AtomicLong();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return table.getTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        table.dispatchCommonEvents(commonEvents.iterator(), Integer.MAX_VALUE, skippedCommonEvents, LOG);
+    }
+
+    /**
+     * Dispatches the common events without collecting all of them in a list. Runs of the same type are limited to
+     * {@link EventDispatcher#STREAM_CHUNK_SIZE} events.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     */
+    @Override
+    public final void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        table.dispatchCommonEvents(commonEvents, STREAM_CHUNK_SIZE, skippedCommonEvents, LOG);
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        table.dispatchEvents(events);
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+
+        Contract.requireArgNotNull("event", event);
+
+        table.dispatchEvent(event);
+    }
+
+    /**
+     * Returns the number of common events that were not deserialized, because no handler was registered for their type. Skipped events
+     * are also logged on debug level.
+     * 
+     * @return Number of skipped common events since creation of the dispatcher.
+     */
+    public final long getSkippedCommonEventCount() {
+        return skippedCommonEvents.get();
+    }
+
+}
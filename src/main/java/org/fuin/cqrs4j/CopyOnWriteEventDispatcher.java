@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry with event handlers that can be changed at runtime. Every change creates a new immutable snapshot that is published atomically
+ * (copy-on-write), so dispatching never takes a lock and always sees a complete set of handlers. A dispatch call uses the snapshot that
+ * was current when it started. The read path has the same cost as {@link CompiledEventDispatcher}, changes are comparably expensive and
+ * should be rare.
+ */
+public final class CopyOnWriteEventDispatcher implements EventDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CopyOnWriteEventDispatcher.class);
+
+    private final AtomicReference<EventHandlerTable> table;
+
+    private final AtomicLong skippedCommonEvents;
+
+    /**
+     * Constructor with array of initial event handlers.
+     * 
+     * @param eventHandlers
+     *            Event handlers. May be empty.
+     */
+    @SuppressWarnings("rawtypes")
+    public CopyOnWriteEventDispatcher(@NotNull final EventHandler... eventHandlers) {
+        this(Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of initial event handlers.
+     * 
+     * @param eventHandlers
+     *            Event handlers. May be empty.
+     */
+    @SuppressWarnings("rawtypes")
+    public CopyOnWriteEventDispatcher(@NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        this.table = new AtomicReference<>(new EventHandlerTable(eventHandlers));
+        this.skippedCommonEvents = new AtomicLong();
+    }
+
+    /**
+     * Adds an event handler. Dispatch calls that start after this method returned will use the new handler.
+     * 
+     * @param eventHandler
+     *            Handler to add.
+     */
+    @SuppressWarnings("rawtypes")
+    public final void register(@NotNull final EventHandler eventHandler) {
+        Contract.requireArgNotNull("eventHandler", eventHandler);
+        EventHandlerTable current;
+        EventHandlerTable changed;
+        do {
+            current = table.get();
+            final List<EventHandler> handlers = new ArrayList<>(current.getHandlers());
+            handlers.add(eventHandler);
+            changed = new EventHandlerTable(handlers);
+        } while (!table.compareAndSet(current, changed));
+    }
+
+    /**
+     * Removes an event handler. Dispatch calls that are already running may still use the handler.
+     * 
+     * @param eventHandler
+     *            Handler to remove. It is compared by identity.
+     * 
+     * @return TRUE if the handler was removed or FALSE if it was not registered.
+     */
+    @SuppressWarnings("rawtypes")
+    public final boolean unregister(@NotNull final EventHandler eventHandler) {
+        Contract.requireArgNotNull("eventHandler", eventHandler);
+        EventHandlerTable current;
+        EventHandlerTable changed;
+        do {
+            current = table.get();
+            final List<EventHandler> handlers = new ArrayList<>(current.getHandlers());
+            if (!removeByIdentity(handlers, eventHandler)) {
+                return false;
+            }
+            changed = new EventHandlerTable(handlers);
+        } while (!table.compareAndSet(current, changed));
+        return true;
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return table.get().getTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        table.get().dispatchCommonEvents(commonEvents.iterator(), Integer.MAX_VALUE, skippedCommonEvents, LOG);
+    }
+
+    /**
+     * Dispatches the common events without collecting all of them in a list. Runs of the same type are limited to
+     * {@link EventDispatcher#STREAM_CHUNK_SIZE} events.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     */
+    @Override
+    public final void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        table.get().dispatchCommonEvents(commonEvents, STREAM_CHUNK_SIZE, skippedCommonEvents, LOG);
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        table.get().dispatchEvents(events);
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+
+        Contract.requireArgNotNull("event", event);
+
+        table.get().dispatchEvent(event);
+    }
+
+    /**
+     * Returns the number of common events that were not deserialized, because no handler was registered for their type. Skipped events
+     * are also logged on debug level.
+     * 
+     * @return Number of skipped common events since creation of the dispatcher.
+     */
+    public final long getSkippedCommonEventCount() {
+        return skippedCommonEvents.get();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static boolean removeByIdentity(final List<EventHandler> handlers, final EventHandler eventHandler) {
+        final Iterator<EventHandler> it = handlers.iterator();
+        while (it.hasNext()) {
+            if (it.next() == eventHandler) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -51,6 +51,12 @@ public final class Cqrs4JUtils {
     /** Result code for {@link #verifyParamEntityIdPathEqualsCmdEntityIdPath(AggregateCommand, EntityId...)} failures. */
     public static final String PARAM_ENTITY_PATH_NOT_EQUAL_CMD_ENTITY_PATH = "PARAM_ENTITY_PATH_NOT_EQUAL_CMD_ENTITY_PATH";
 
+    /** A command was rejected because the executor is over its configured capacity. */
+    public static final String OVERLOADED = "OVERLOADED";
+
+    /** A command was not completed before its deadline. */
+    public static final String DEADLINE_EXCEEDED = "DEADLINE_EXCEEDED";
+
     /** Prefix for unique short identifiers. */
     public static final String SHORT_ID_PREFIX = "CQRS4J";
 
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Event that could not be handled by an event handler and is parked for a later retry. Instances are immutable.
+ */
+public final class DeadLetter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID id;
+
+    private final String handlerName;
+
+    private final Event event;
+
+    private final int attempts;
+
+    private final long nextAttemptMillis;
+
+    private final String lastError;
+
+    private final boolean permanentlyFailed;
+
+    /**
+     * Constructor for an event that failed the first time.
+     * 
+     * @param handlerName
+     *            Unique name of the handler that failed.
+     * @param event
+     *            Event that could not be handled.
+     * @param nextAttemptMillis
+     *            Time of the next attempt in milliseconds since the epoch.
+     * @param lastError
+     *            Message of the exception thrown by the handler.
+     */
+    public DeadLetter(@NotNull final String handlerName, @NotNull final Event event, final long nextAttemptMillis, final String lastError) {
+        this(UUID.randomUUID(), handlerName, event, 1, nextAttemptMillis, lastError, false);
+    }
+
+    private DeadLetter(final UUID id, final String handlerName, final Event event, final int attempts, final long nextAttemptMillis,
+            final String lastError, final boolean permanentlyFailed) {
+        super();
+        Contract.requireArgNotNull("handlerName", handlerName);
+        Contract.requireArgNotNull("event", event);
+        this.id = id;
+        this.handlerName = handlerName;
+        this.event = event;
+        this.attempts = attempts;
+        this.nextAttemptMillis = nextAttemptMillis;
+        this.lastError = lastError;
+        this.permanentlyFailed = permanentlyFailed;
+    }
+
+    /**
+     * Returns the unique identifier of the dead letter.
+     * 
+     * @return Identifier.
+     */
+    @NotNull
+    public final UUID getId() {
+        return id;
+    }
+
+    /**
+     * Returns the unique name of the handler that failed.
+     * 
+     * @return Handler name.
+     */
+    @NotNull
+    public final String getHandlerName() {
+        return handlerName;
+    }
+
+    /**
+     * Returns the event that could not be handled.
+     * 
+     * @return Event.
+     */
+    @NotNull
+    public final Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the number of failed attempts to handle the event.
+     * 
+     * @return Number of failures.
+     */
+    public final int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns the time of the next attempt.
+     * 
+     * @return Milliseconds since the epoch.
+     */
+    public final long getNextAttemptMillis() {
+        return nextAttemptMillis;
+    }
+
+    /**
+     * Returns the message of the last exception thrown by the handler.
+     * 
+     * @return Error message or NULL.
+     */
+    public final String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Determines if the event will not be retried anymore.
+     * 
+     * @return TRUE if all attempts failed.
+     */
+    public final boolean isPermanentlyFailed() {
+        return permanentlyFailed;
+    }
+
+    /**
+     * Returns a copy with one more failed attempt.
+     * 
+     * @param nextAttemptMillis
+     *            Time of the next attempt in milliseconds since the epoch.
+     * @param lastError
+     *            Message of the exception thrown by the handler.
+     * 
+     * @return New instance.
+     */
+    @NotNull
+    public final DeadLetter retryFailed(final long nextAttemptMillis, final String lastError) {
+        return new DeadLetter(id, handlerName, event, attempts + 1, nextAttemptMillis, lastError, false);
+    }
+
+    /**
+     * Returns a copy with the same number of attempts that will not be retried anymore.
+     * 
+     * @param lastError
+     *            Message of the exception thrown by the handler.
+     * 
+     * @return New instance.
+     */
+    @NotNull
+    public final DeadLetter permanentlyFailed(final String lastError) {
+        return new DeadLetter(id, handlerName, event, attempts, nextAttemptMillis, lastError, true);
+    }
+
+    @Override
+    public final String toString() {
+        return "DeadLetter [id=" + id + ", handlerName=" + handlerName + ", eventId=" + event.getEventId() + ", attempts=" + attempts
+                + ", permanentlyFailed=" + permanentlyFailed + "]";
+    }
+
+}
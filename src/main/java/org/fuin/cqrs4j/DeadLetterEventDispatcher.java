@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatcher that isolates failing event handlers. If a handler throws an exception, the event is parked in a {@link DeadLetterStore}
+ * for that handler only and the dispatch continues with the next handler and event. A background thread retries parked events with an
+ * exponential backoff until they succeed or the maximum number of attempts is reached. Retried events may arrive at a handler after
+ * newer events. Retries and the dispatch of new events never run concurrently for the same handler.<br>
+ * <br>
+ * The handlers are identified in the store by their class name and position in the list, so the same list of handlers has to be used
+ * after a restart to retry the entries of a persistent store.
+ */
+public final class DeadLetterEventDispatcher implements EventDispatcher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadLetterEventDispatcher.class);
+
+    private final DeadLetterStore store;
+
+    private final int maxAttempts;
+
+    private final long initialDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final Map<String, GuardedEventHandler> handlersByName;
+
+    private final EventDispatcher delegate;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong parked;
+
+    private final AtomicLong retried;
+
+    private final AtomicLong permanentlyFailed;
+
+    /**
+     * Constructor with array of event handlers.
+     * 
+     * @param store
+     *            Store for the events that failed.
+     * @param maxAttempts
+     *            Maximum number of attempts including the first one before an event is marked as permanently failed.
+     * @param initialDelayMillis
+     *            Delay before the first retry. The delay doubles with every further attempt. Also used as interval for checking the store.
+     * @param maxDelayMillis
+     *            Maximum delay between two retries.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public DeadLetterEventDispatcher(@NotNull final DeadLetterStore store, final int maxAttempts, final long initialDelayMillis,
+            final long maxDelayMillis, @NotNull final EventHandler... eventHandlers) {
+        this(store, maxAttempts, initialDelayMillis, maxDelayMillis, Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers that are called by a {@link SimpleEventDispatcher}.
+     * 
+     * @param store
+     *            Store for the events that failed.
+     * @param maxAttempts
+     *            Maximum number of attempts including the first one before an event is marked as permanently failed.
+     * @param initialDelayMillis
+     *            Delay before the first retry. The delay doubles with every further attempt. Also used as interval for checking the store.
+     * @param maxDelayMillis
+     *            Maximum delay between two retries.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public DeadLetterEventDispatcher(@NotNull final DeadLetterStore store, final int maxAttempts, final long initialDelayMillis,
+            final long maxDelayMillis, @NotNull final List<EventHandler> eventHandlers) {
+        this(store, maxAttempts, initialDelayMillis, maxDelayMillis, eventHandlers, SimpleEventDispatcher::new);
+    }
+
+    /**
+     * Constructor with all data. The guarded handlers are passed to the factory, so any dispatcher implementation can be used. Handlers
+     * that implement {@link BatchEventHandler} are still batch handlers after they are guarded. The created dispatcher is closed together
+     * with this one if it implements {@link AutoCloseable}.
+     * 
+     * @param store
+     *            Store for the events that failed.
+     * @param maxAttempts
+     *            Maximum number of attempts including the first one before an event is marked as permanently failed.
+     * @param initialDelayMillis
+     *            Delay before the first retry. The delay doubles with every further attempt. Also used as interval for checking the store.
+     * @param maxDelayMillis
+     *            Maximum delay between two retries.
+     * @param eventHandlers
+     *            Event handlers.
+     * @param dispatcherFactory
+     *            Creates the dispatcher that calls the guarded handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public DeadLetterEventDispatcher(@NotNull final DeadLetterStore store, final int maxAttempts, final long initialDelayMillis,
+            final long maxDelayMillis, @NotNull final List<EventHandler> eventHandlers,
+            @NotNull final Function<List<EventHandler>, EventDispatcher> dispatcherFactory) {
+        super();
+        Contract.requireArgNotNull("store", store);
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        Contract.requireArgNotNull("dispatcherFactory", dispatcherFactory);
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The argument 'maxAttempts' must be greater than zero, but was: " + maxAttempts);
+        }
+        if (initialDelayMillis < 1) {
+            throw new IllegalArgumentException(
+                    "The argument 'initialDelayMillis' must be greater than zero, but was: " + initialDelayMillis);
+        }
+        if (maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("The argument 'maxDelayMillis' cannot be less than 'initialDelayMillis', but was: "
+                    + maxDelayMillis);
+        }
+        this.store = store;
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.parked = new AtomicLong();
+        this.retried = new AtomicLong();
+        this.permanentlyFailed = new AtomicLong();
+
+        this.handlersByName = new HashMap<>();
+        final List<EventHandler> guarded = new ArrayList<>(eventHandlers.size());
+        for (int i = 0; i < eventHandlers.size(); i++) {
+            final EventHandler eventHandler = eventHandlers.get(i);
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            final String name = eventHandler.getClass().getName() + "#" + i;
+            final GuardedEventHandler guardedHandler;
+            if (eventHandler instanceof BatchEventHandler) {
+                guardedHandler = new GuardedBatchEventHandler(name, (BatchEventHandler) eventHandler);
+            } else {
+                guardedHandler = new GuardedEventHandler(name, eventHandler);
+            }
+            handlersByName.put(name, guardedHandler);
+            guarded.add(guardedHandler);
+        }
+        this.delegate = dispatcherFactory.apply(guarded);
+        Contract.requireArgNotNull("delegate", delegate);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(getClass().getSimpleName()));
+        scheduler.scheduleWithFixedDelay(this::retryDueEvents, initialDelayMillis, initialDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return delegate.getAllTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+        delegate.dispatchCommonEvents(commonEvents);
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+        delegate.dispatchEvents(events);
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+        delegate.dispatchEvent(event);
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+        delegate.dispatchCommonEvents(commonEvents);
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final Iterator<Event> events) {
+        delegate.dispatchEvents(events);
+    }
+
+    /**
+     * Retries all parked events that are due. Called periodically by the background thread, but may also be used to trigger a retry
+     * manually.
+     * 
+     * @return Number of events that were retried.
+     */
+    public final synchronized int retryDueEvents() {
+        try {
+            final List<DeadLetter> due = store.findDue(System.currentTimeMillis());
+            for (final DeadLetter deadLetter : due) {
+                retried.incrementAndGet();
+                final GuardedEventHandler handler = handlersByName.get(deadLetter.getHandlerName());
+                if (handler == null) {
+                    LOG.error("Unknown handler " + deadLetter.getHandlerName() + " for " + deadLetter);
+                    markPermanentlyFailed(deadLetter, "Unknown handler");
+                    continue;
+                }
+                try {
+                    handler.retry(deadLetter.getEvent());
+                    store.remove(deadLetter.getId());
+                } catch (final RuntimeException ex) {
+                    if (deadLetter.getAttempts() + 1 >= maxAttempts) {
+                        LOG.error("Giving up after " + maxAttempts + " attempts: " + deadLetter, ex);
+                        markPermanentlyFailed(deadLetter.retryFailed(deadLetter.getNextAttemptMillis(), ex.toString()), ex.toString());
+                    } else {
+                        final long nextAttempt = System.currentTimeMillis() + delay(deadLetter.getAttempts() + 1);
+                        store.store(deadLetter.retryFailed(nextAttempt, ex.toString()));
+                    }
+                }
+            }
+            return due.size();
+        } catch (final RuntimeException ex) {
+            LOG.error("Failed to retry dead letters", ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the number of events that were parked after the first failure.
+     * 
+     * @return Number of parked events.
+     */
+    public final long getParkedCount() {
+        return parked.get();
+    }
+
+    /**
+     * Returns the number of retry attempts.
+     * 
+     * @return Number of retries.
+     */
+    public final long getRetriedCount() {
+        return retried.get();
+    }
+
+    /**
+     * Returns the number of events that will not be retried anymore.
+     * 
+     * @return Number of permanently failed events.
+     */
+    public final long getPermanentlyFailedCount() {
+        return permanentlyFailed.get();
+    }
+
+    /**
+     * Stops the background retries and closes the delegate dispatcher. Parked events remain in the store.
+     */
+    @Override
+    public final void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (delegate instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) delegate).close();
+            } catch (final Exception ex) {
+                LOG.error("Failed to close dispatcher " + delegate.getClass().getName(), ex);
+            }
+        }
+    }
+
+    private void markPermanentlyFailed(final DeadLetter deadLetter, final String error) {
+        store.store(deadLetter.permanentlyFailed(error));
+        permanentlyFailed.incrementAndGet();
+    }
+
+    private long delay(final int failedAttempts) {
+        final int shift = Math.max(0, Math.min(failedAttempts - 1, 62));
+        // Compare before shifting, as the shifted value may overflow
+        if (initialDelayMillis > (maxDelayMillis >> shift)) {
+            return maxDelayMillis;
+        }
+        return initialDelayMillis << shift;
+    }
+
+    /**
+     * Passes events to the wrapped handler and parks them if the handler throws an exception. All calls of the wrapped handler are
+     * synchronized on this instance, so retries do not overlap with the dispatch.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private class GuardedEventHandler implements EventHandler {
+
+        private final String name;
+
+        private final EventHandler handler;
+
+        GuardedEventHandler(final String name, final EventHandler handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        @Override
+        public EventType getEventType() {
+            return handler.getEventType();
+        }
+
+        @Override
+        public synchronized void handle(final Event event) {
+            try {
+                handler.handle(event);
+            } catch (final RuntimeException ex) {
+                LOG.warn("Handler " + name + " failed to handle event " + event.getEventId() + " - Parked it for retry", ex);
+                if (maxAttempts == 1) {
+                    markPermanentlyFailed(new DeadLetter(name, event, System.currentTimeMillis(), ex.toString()), ex.toString());
+                } else {
+                    store.store(new DeadLetter(name, event, System.currentTimeMillis() + delay(1), ex.toString()));
+                }
+                parked.incrementAndGet();
+            }
+        }
+
+        synchronized void retry(final Event event) {
+            handler.handle(event);
+        }
+
+    }
+
+    /**
+     * Passes batches to the wrapped handler. If the batch fails, the events that were not applied are passed one by one, so only the
+     * failing events are parked. The handler reports the applied part with a {@link BatchEventHandlerException}, any other exception
+     * means that nothing was applied.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private final class GuardedBatchEventHandler extends GuardedEventHandler implements BatchEventHandler {
+
+        private final BatchEventHandler batchHandler;
+
+        GuardedBatchEventHandler(final String name, final BatchEventHandler batchHandler) {
+            super(name, batchHandler);
+            this.batchHandler = batchHandler;
+        }
+
+        @Override
+        public synchronized void handleBatch(final List events) {
+            try {
+                batchHandler.handleBatch(events);
+            } catch (final RuntimeException ex) {
+                final int first = firstNotApplied(ex, events.size());
+                LOG.warn("Handler " + batchHandler.getClass().getName() + " failed to handle a batch of " + events.size()
+                        + " events - Retrying " + (events.size() - first) + " of them one by one", ex);
+                for (int i = first; i < events.size(); i++) {
+                    handle((Event) events.get(i));
+                }
+            }
+        }
+
+        private int firstNotApplied(final RuntimeException ex, final int size) {
+            if (ex instanceof BatchEventHandlerException) {
+                final int failedIndex = ((BatchEventHandlerException) ex).getFailedIndex();
+                if (failedIndex < size) {
+                    return failedIndex;
+                }
+                LOG.error("Handler " + batchHandler.getClass().getName() + " reported failed event #" + failedIndex + " for a batch of "
+                        + size + " events - Retrying all of them");
+            }
+            return 0;
+        }
+
+    }
+
+}
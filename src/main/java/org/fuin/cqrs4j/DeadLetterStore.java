@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Stores events that could not be handled.
+ */
+public interface DeadLetterStore {
+
+    /**
+     * Adds a dead letter or replaces the one with the same identifier.
+     * 
+     * @param deadLetter
+     *            Dead letter to store.
+     */
+    public void store(@NotNull DeadLetter deadLetter);
+
+    /**
+     * Removes a dead letter. Nothing happens if it does not exist.
+     * 
+     * @param id
+     *            Identifier of the dead letter.
+     */
+    public void remove(@NotNull UUID id);
+
+    /**
+     * Returns all dead letters that are not permanently failed and have a next attempt time not after the given time.
+     * 
+     * @param nowMillis
+     *            Current time in milliseconds since the epoch.
+     * 
+     * @return Dead letters to retry ordered by next attempt time.
+     */
+    @NotNull
+    public List<DeadLetter> findDue(long nowMillis);
+
+    /**
+     * Returns all stored dead letters including the permanently failed ones.
+     * 
+     * @return All dead letters.
+     */
+    @NotNull
+    public List<DeadLetter> findAll();
+
+}
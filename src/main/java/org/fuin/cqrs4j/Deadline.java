@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Point in time until a command has to be completed. The deadline is based on {@link System#nanoTime()}, so it is only meaningful inside
+ * the JVM that created it and not affected by changes of the wall clock.
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(final long deadlineNanos) {
+        super();
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Determines if the deadline has passed.
+     * 
+     * @return TRUE if there is no time left, else FALSE.
+     */
+    public final boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     * 
+     * @param unit
+     *            Unit of the result.
+     * 
+     * @return Remaining time or zero if the deadline has passed.
+     */
+    public final long getRemaining(@NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("unit", unit);
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throws an exception if the deadline has passed. Long running executors and interceptors may call this between steps to stop
+     * working on a command nobody waits for anymore.
+     * 
+     * @throws DeadlineExceededException
+     *             The deadline has passed.
+     */
+    public final void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded by " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadlineNanos)
+                    + " ms");
+        }
+    }
+
+    @Override
+    public final String toString() {
+        return "Deadline [remainingMillis=" + getRemaining(TimeUnit.MILLISECONDS) + "]";
+    }
+
+    /**
+     * Creates a deadline the given time from now.
+     * 
+     * @param timeout
+     *            Time until the deadline.
+     * @param unit
+     *            Unit of the timeout.
+     * 
+     * @return New deadline.
+     */
+    @NotNull
+    public static Deadline after(final long timeout, @NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("unit", unit);
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Returns the deadline of a command context.
+     * 
+     * @param ctx
+     *            Context of the command execution.
+     * 
+     * @return Deadline or NULL if the context does not implement {@link DeadlineAware} or has no deadline.
+     */
+    public static Deadline of(final Object ctx) {
+        if (ctx instanceof DeadlineAware) {
+            return ((DeadlineAware) ctx).getDeadline();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+/**
+ * Command execution context that carries a deadline. Executors that queue commands drop them once the deadline has passed.
+ */
+public interface DeadlineAware {
+
+    /**
+     * Returns the point in time until the command has to be completed.
+     * 
+     * @return Deadline or NULL if the command has no time limit.
+     */
+    public Deadline getDeadline();
+
+}
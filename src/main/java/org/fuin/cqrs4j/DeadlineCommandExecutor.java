@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that enforces the {@link Deadline} of a {@link DeadlineAware} context. The command is executed on a separate thread and the
+ * caller waits at most until the deadline. Once it has passed, the caller receives a {@link SimpleResult} error with code
+ * {@link Cqrs4JUtils#DEADLINE_EXCEEDED} and the executing thread is interrupted. The interrupt is only a request: a delegate that does not
+ * react to it, or that already wrote its events, may still commit the command. The outcome of an expired command is therefore unknown
+ * and the caller has to find out if it was executed, for example by resubmitting it with the same identifier to an
+ * {@link IdempotentCommandExecutor}. The same error is returned if the deadline passed before the command was started (the command was
+ * certainly not executed then) or if the delegate throws a {@link DeadlineExceededException}. Commands without deadline are executed
+ * directly on the caller's thread.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class DeadlineCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final ExecutorService executorService;
+
+    private final Function<SimpleResult, RESULT> errorMapper;
+
+    private final AtomicLong expired;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor that actually executes the commands.
+     * @param executorService
+     *            Runs commands with a deadline. Use {@link AsyncCommandExecutorAdapter#newPerCommandExecutor()} for one thread per command.
+     * @param errorMapper
+     *            Converts the error for an expired command into the result type of the executor.
+     */
+    public DeadlineCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate,
+            @NotNull final ExecutorService executorService, @NotNull final Function<SimpleResult, RESULT> errorMapper) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("executorService", executorService);
+        Contract.requireArgNotNull("errorMapper", errorMapper);
+        this.delegate = delegate;
+        this.executorService = executorService;
+        this.errorMapper = errorMapper;
+        this.expired = new AtomicLong();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final Deadline deadline = Deadline.of(ctx);
+        if (deadline == null) {
+            return delegate.execute(ctx, cmd);
+        }
+        if (deadline.isExpired()) {
+            return deadlineExceeded(cmd);
+        }
+        final Future<RESULT> future = executorService.submit(() -> delegate.execute(ctx, cmd));
+        try {
+            return future.get(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (final TimeoutException ex) {
+            future.cancel(true);
+            return deadlineExceeded(cmd);
+        } catch (final InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CommandExecutionFailedException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof DeadlineExceededException) {
+                return deadlineExceeded(cmd);
+            }
+            CommandFailures.rethrow(ex.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of commands that were not completed before their deadline.
+     * 
+     * @return Number of expired commands.
+     */
+    public final long getExpiredCount() {
+        return expired.get();
+    }
+
+    private RESULT deadlineExceeded(final CMD cmd) {
+        expired.incrementAndGet();
+        return errorMapper.apply(SimpleResult.error(Cqrs4JUtils.DEADLINE_EXCEEDED,
+                "Command '" + cmd.getEventType() + "' did not complete before its deadline - It may still have been executed"));
+    }
+
+}
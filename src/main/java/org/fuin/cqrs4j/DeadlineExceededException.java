@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * The deadline of a command passed before the command was executed or completed.
+ */
+public final class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor with message.
+     * 
+     * @param message
+     *            Error message.
+     */
+    public DeadlineExceededException(@NotNull final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor with message and cause.
+     * 
+     * @param message
+     *            Error message.
+     * @param cause
+     *            Failure that would have been handled if there was time left.
+     */
+    public DeadlineExceededException(@NotNull final String message, @NotNull final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.function.Function;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Interceptor that skips the rest of the pipeline if the {@link Deadline} of a {@link DeadlineAware} context has passed. A
+ * {@link DeadlineExceededException} thrown by later interceptors or the executor is converted as well. In both cases the result is a
+ * {@link SimpleResult} error with code {@link Cqrs4JUtils#DEADLINE_EXCEEDED}.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class DeadlineInterceptor<CONTEXT, RESULT, CMD extends Command> implements CommandInterceptor<CONTEXT, RESULT, CMD> {
+
+    private final Function<SimpleResult, RESULT> errorMapper;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param errorMapper
+     *            Converts the error for an expired command into the result type of the executor.
+     */
+    public DeadlineInterceptor(@NotNull final Function<SimpleResult, RESULT> errorMapper) {
+        super();
+        Contract.requireArgNotNull("errorMapper", errorMapper);
+        this.errorMapper = errorMapper;
+    }
+
+    @Override
+    public final RESULT intercept(@NotNull final CONTEXT ctx, @NotNull final CMD cmd,
+            @NotNull final CommandInterceptorChain<CONTEXT, RESULT, CMD> chain) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        final Deadline deadline = Deadline.of(ctx);
+        if (deadline == null) {
+            return chain.proceed(ctx, cmd);
+        }
+        try {
+            deadline.check();
+            return chain.proceed(ctx, cmd);
+        } catch (final DeadlineExceededException ex) {
+            return errorMapper.apply(SimpleResult.error(Cqrs4JUtils.DEADLINE_EXCEEDED, ex.getMessage()));
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that drops events with an identifier that was already dispatched. A bounded number of recently seen event identifiers is
+ * remembered, so redeliveries of an at-least-once subscription do not reach the handlers again. Common events are checked before they are
+ * deserialized.<br>
+ * <br>
+ * If the delegate throws an exception, the identifiers of <b>all</b> events passed to it in the failed call are forgotten. The delegate
+ * does not report which event failed, so events that were applied before the failure are not dropped when the subscription redelivers
+ * the batch. Handlers behind this decorator must therefore tolerate seeing the applied part of a failed batch again.
+ */
+public final class DeduplicatingEventDispatcher implements EventDispatcher {
+
+    private final EventDispatcher delegate;
+
+    private final RecentUuidSet seen;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param delegate
+     *            Dispatcher that receives all events not seen before.
+     * @param capacity
+     *            Maximum number of event identifiers to remember.
+     */
+    public DeduplicatingEventDispatcher(@NotNull final EventDispatcher delegate, final int capacity) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        this.delegate = delegate;
+        this.seen = new RecentUuidSet(capacity);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return delegate.getAllTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        final List<CommonEvent> unseen = new ArrayList<>(commonEvents.size());
+        final List<UUID> added = new ArrayList<>(commonEvents.size());
+        for (final CommonEvent commonEvent : commonEvents) {
+            final UUID id = commonEvent.getId().asBaseType();
+            if (markSeen(id)) {
+                unseen.add(commonEvent);
+                added.add(id);
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+        try {
+            delegate.dispatchCommonEvents(unseen);
+        } catch (final RuntimeException | Error ex) {
+            forget(added);
+            throw ex;
+        }
+
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        final List<Event> unseen = new ArrayList<>(events.size());
+        final List<UUID> added = new ArrayList<>(events.size());
+        for (final Event event : events) {
+            final UUID id = event.getEventId().asBaseType();
+            if (markSeen(id)) {
+                unseen.add(event);
+                added.add(id);
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+        try {
+            delegate.dispatchEvents(unseen);
+        } catch (final RuntimeException | Error ex) {
+            forget(added);
+            throw ex;
+        }
+
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+
+        Contract.requireArgNotNull("event", event);
+
+        final UUID id = event.getEventId().asBaseType();
+        if (!markSeen(id)) {
+            return;
+        }
+        try {
+            delegate.dispatchEvent(event);
+        } catch (final RuntimeException | Error ex) {
+            seen.remove(id);
+            throw ex;
+        }
+
+    }
+
+    /**
+     * Returns the number of events that were dropped because they were already seen.
+     * 
+     * @return Number of duplicates.
+     */
+    public final long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of events that were passed to the delegate.
+     * 
+     * @return Number of events not seen before.
+     */
+    public final long getMissCount() {
+        return misses.get();
+    }
+
+    private boolean markSeen(final UUID id) {
+        if (seen.add(id)) {
+            misses.incrementAndGet();
+            return true;
+        }
+        hits.incrementAndGet();
+        return false;
+    }
+
+    private void forget(final List<UUID> ids) {
+        // The failing position is unknown, so the whole batch is made eligible for redelivery
+        for (final UUID id : ids) {
+            seen.remove(id);
+        }
+    }
+
+}
@@ -17,20 +17,27 @@
  */
 package org.fuin.cqrs4j;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import jakarta.validation.constraints.NotNull;
 
 import org.fuin.ddd4j.ddd.Event;
 import org.fuin.ddd4j.ddd.EventType;
 import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
 
 /**
  * Registry with all event handlers.
  */
 public interface EventDispatcher {
 
+    /** Maximum number of events the default implementations for iterators and streams pass to the list based methods at once. */
+    public static final int STREAM_CHUNK_SIZE = 256;
+
     /**
      * Returns a set of all known types.
      * 
@@ -64,4 +71,63 @@ public interface EventDispatcher {
      */
     public void dispatchEvent(@NotNull Event event);
 
+    /**
+     * Dispatches the common events without collecting all of them in a list. The default implementation passes chunks of at most
+     * {@link #STREAM_CHUNK_SIZE} events to {@link #dispatchCommonEvents(List)}, so the batch handling of the implementation is used and
+     * only one chunk is kept in memory at a time.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     */
+    public default void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+        while (commonEvents.hasNext()) {
+            final List<CommonEvent> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (commonEvents.hasNext() && chunk.size() < STREAM_CHUNK_SIZE) {
+                chunk.add(commonEvents.next());
+            }
+            dispatchCommonEvents(chunk);
+        }
+    }
+
+    /**
+     * Dispatches the common events of a stream without collecting all of them in a list. The stream is not closed.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     */
+    public default void dispatchCommonEvents(@NotNull final Stream<CommonEvent> commonEvents) {
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+        dispatchCommonEvents(commonEvents.iterator());
+    }
+
+    /**
+     * Dispatches the events without collecting all of them in a list. The default implementation passes chunks of at most
+     * {@link #STREAM_CHUNK_SIZE} events to {@link #dispatchEvents(List)}.
+     * 
+     * @param events
+     *            Events to dispatch.
+     */
+    public default void dispatchEvents(@NotNull final Iterator<Event> events) {
+        Contract.requireArgNotNull("events", events);
+        while (events.hasNext()) {
+            final List<Event> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            while (events.hasNext() && chunk.size() < STREAM_CHUNK_SIZE) {
+                chunk.add(events.next());
+            }
+            dispatchEvents(chunk);
+        }
+    }
+
+    /**
+     * Dispatches the events of a stream without collecting all of them in a list. The stream is not closed.
+     * 
+     * @param events
+     *            Events to dispatch.
+     */
+    public default void dispatchEvents(@NotNull final Stream<Event> events) {
+        Contract.requireArgNotNull("events", events);
+        dispatchEvents(events.iterator());
+    }
+
 }
@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Subscriber that passes all events of the handler's type to an {@link EventHandler}. Events of other types are ignored. The subscriber
+ * never requests more than a fixed window of events and requests the next half window only after it handled the previous one. Exceptions
+ * thrown by the handler are logged and the subscription continues.
+ * 
+ * @param <TYPE>
+ *            Event type.
+ */
+public final class EventHandlerSubscriber<TYPE extends Event> implements Flow.Subscriber<Event> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventHandlerSubscriber.class);
+
+    private final EventHandler<TYPE> handler;
+
+    private final EventType eventType;
+
+    private final int window;
+
+    private final int replenish;
+
+    private final CountDownLatch completed;
+
+    private final AtomicLong processed;
+
+    private Flow.Subscription subscription;
+
+    private int outstanding;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param handler
+     *            Handler to pass the events to.
+     * @param window
+     *            Maximum number of events requested, but not yet received.
+     */
+    public EventHandlerSubscriber(@NotNull final EventHandler<TYPE> handler, final int window) {
+        super();
+        Contract.requireArgNotNull("handler", handler);
+        if (window < 1) {
+            throw new IllegalArgumentException("The argument 'window' must be greater than zero, but was: " + window);
+        }
+        this.handler = handler;
+        this.eventType = handler.getEventType();
+        this.window = window;
+        this.replenish = Math.max(1, window / 2);
+        this.completed = new CountDownLatch(1);
+        this.processed = new AtomicLong();
+    }
+
+    /**
+     * Returns the wrapped handler.
+     * 
+     * @return Event handler.
+     */
+    @NotNull
+    public final EventHandler<TYPE> getHandler() {
+        return handler;
+    }
+
+    @Override
+    public final void onSubscribe(final Flow.Subscription subscription) {
+        this.subscription = subscription;
+        this.outstanding = window;
+        subscription.request(window);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void onNext(final Event event) {
+        if (eventType.equals(event.getEventType())) {
+            try {
+                handler.handle((TYPE) event);
+            } catch (final RuntimeException ex) {
+                LOG.error("Handler " + handler.getClass().getName() + " failed to handle event " + event.getEventId(), ex);
+            }
+        }
+        outstanding--;
+        if (outstanding <= window - replenish) {
+            outstanding = outstanding + replenish;
+            subscription.request(replenish);
+        }
+        processed.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of events that are done for this subscriber. This includes events of other types and events the publisher
+     * dropped for this subscriber.
+     * 
+     * @return Number of processed events.
+     */
+    public final long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * Counts an event the publisher dropped for this subscriber as processed.
+     */
+    final void dropped() {
+        processed.incrementAndGet();
+    }
+
+    @Override
+    public final void onError(final Throwable throwable) {
+        LOG.error("Subscription for handler " + handler.getClass().getName() + " failed", throwable);
+        completed.countDown();
+    }
+
+    @Override
+    public final void onComplete() {
+        completed.countDown();
+    }
+
+    /**
+     * Waits until the publisher signalled completion or an error.
+     * 
+     * @param timeout
+     *            Maximum time to wait.
+     * @param unit
+     *            Unit of the timeout.
+     * 
+     * @return TRUE if the subscription completed or FALSE if the timeout elapsed before.
+     * 
+     * @throws InterruptedException
+     *             The thread was interrupted while waiting.
+     */
+    public final boolean awaitCompletion(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+        Contract.requireArgNotNull("unit", unit);
+        return completed.await(timeout, unit);
+    }
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+
+/**
+ * Immutable lookup table that maps every event type to a dense slot number using an {@link EventTypeRegistry} and keeps the handlers of a
+ * slot in an array. Instances are built once and can be shared between threads without synchronization. The dispatch methods do not
+ * allocate objects for single events and pass contiguous runs of the same type to {@link BatchEventHandler} instances.
+ */
+@SuppressWarnings("rawtypes")
+final class EventHandlerTable {
+
+    /** Slot number returned for unknown event types. */
+    static final int UNKNOWN = EventTypeRegistry.UNKNOWN;
+
+    private final EventTypeRegistry registry;
+
+    private final EventHandler[][] handlers;
+
+    private final boolean[] batchCapable;
+
+    private final Set<EventType> types;
+
+    private final List<EventHandler> handlerList;
+
+    /**
+     * Constructor with list of event handlers.
+     * 
+     * @param eventHandlers
+     *            Event handlers in the order they should be called.
+     */
+    EventHandlerTable(@NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+
+        final Map<EventType, List<EventHandler>> map = new LinkedHashMap<>();
+        for (final EventHandler eventHandler : eventHandlers) {
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            map.computeIfAbsent(eventHandler.getEventType(), type -> new ArrayList<>()).add(eventHandler);
+        }
+
+        final List<EventType> handlerTypes = new ArrayList<>();
+        for (final EventHandler eventHandler : eventHandlers) {
+            handlerTypes.add(eventHandler.getEventType());
+        }
+        this.registry = new EventTypeRegistry(handlerTypes);
+        this.handlers = new EventHandler[map.size()][];
+        this.batchCapable = new boolean[map.size()];
+        for (final Map.Entry<EventType, List<EventHandler>> entry : map.entrySet()) {
+            final int slot = registry.indexOf(entry.getKey());
+            handlers[slot] = entry.getValue().toArray(new EventHandler[entry.getValue().size()]);
+            for (final EventHandler handler : handlers[slot]) {
+                if (handler instanceof BatchEventHandler) {
+                    batchCapable[slot] = true;
+                }
+            }
+        }
+        this.types = Collections.unmodifiableSet(map.keySet());
+        this.handlerList = Collections.unmodifiableList(new ArrayList<>(eventHandlers));
+    }
+
+    /**
+     * Dispatches a single event to all handlers of its type.
+     * 
+     * @param event
+     *            Event to dispatch.
+     */
+    void dispatchEvent(@NotNull final Event event) {
+        final int slot = registry.indexOf(event.getEventType());
+        if (slot != UNKNOWN) {
+            dispatchToSlot(slot, event);
+        }
+    }
+
+    /**
+     * Dispatches a list of events. Contiguous runs of events with the same type are passed to batch handlers with a single call.
+     * 
+     * @param events
+     *            Events to dispatch.
+     */
+    void dispatchEvents(@NotNull final List<Event> events) {
+        int start = 0;
+        while (start < events.size()) {
+            final int slot = registry.indexOf(events.get(start).getEventType());
+            int end = start + 1;
+            while (end < events.size() && registry.indexOf(events.get(end).getEventType()) == slot) {
+                end++;
+            }
+            dispatchSlotRun(slot, events.subList(start, end));
+            start = end;
+        }
+    }
+
+    /**
+     * Deserializes common events with a known type and dispatches contiguous runs of the same type as soon as the next type starts. If an
+     * event cannot be deserialized, the events before it are dispatched before the exception is passed to the caller.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     * @param maxRun
+     *            Maximum number of events in a run.
+     * @param skipped
+     *            Counter that is incremented for every event that is not deserialized, because there is no handler for its type.
+     * @param log
+     *            Logger of the dispatcher used to report skipped events on debug level.
+     */
+    void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents, final int maxRun, @NotNull final AtomicLong skipped,
+            @NotNull final Logger log) {
+        final List<Event> run = new ArrayList<>();
+        int runSlot = UNKNOWN;
+        while (commonEvents.hasNext()) {
+            final CommonEvent commonEvent = commonEvents.next();
+            if (registry.indexOf(commonEvent.getDataType().asBaseType()) == UNKNOWN) {
+                skipped.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("Skipped event " + commonEvent.getId() + " - No handler for data type: " + commonEvent.getDataType());
+                }
+                continue;
+            }
+            final Event event;
+            try {
+                event = (Event) commonEvent.getData();
+            } catch (final RuntimeException ex) {
+                // Events before the broken one were read successfully and are not held back
+                dispatchSlotRun(runSlot, run);
+                throw ex;
+            }
+            final int slot = registry.indexOf(event.getEventType());
+            if (!run.isEmpty() && (run.size() >= maxRun || slot != runSlot)) {
+                dispatchSlotRun(runSlot, run);
+                run.clear();
+            }
+            runSlot = slot;
+            run.add(event);
+        }
+        dispatchSlotRun(runSlot, run);
+    }
+
+    private void dispatchSlotRun(final int slot, final List<Event> run) {
+        if (slot == UNKNOWN || run.isEmpty()) {
+            return;
+        }
+        if (batchCapable[slot]) {
+            dispatchRun(slot, Collections.unmodifiableList(run));
+        } else {
+            for (int i = 0; i < run.size(); i++) {
+                dispatchToSlot(slot, run.get(i));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatchToSlot(final int slot, final Event event) {
+        final EventHandler[] slotHandlers = handlers[slot];
+        for (int i = 0; i < slotHandlers.length; i++) {
+            slotHandlers[i].handle(event);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatchRun(final int slot, final List<Event> run) {
+        final EventHandler[] slotHandlers = handlers[slot];
+        for (int i = 0; i < slotHandlers.length; i++) {
+            final EventHandler handler = slotHandlers[i];
+            if (handler instanceof BatchEventHandler) {
+                ((BatchEventHandler) handler).handleBatch(run);
+            } else {
+                for (int j = 0; j < run.size(); j++) {
+                    handler.handle(run.get(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all known event types.
+     * 
+     * @return Unmodifiable set of types.
+     */
+    Set<EventType> getTypes() {
+        return types;
+    }
+
+    /**
+     * Returns all handlers the table was built from.
+     * 
+     * @return Unmodifiable list of handlers in registration order.
+     */
+    List<EventHandler> getHandlers() {
+        return handlerList;
+    }
+
+}
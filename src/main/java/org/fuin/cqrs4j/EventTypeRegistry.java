@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Immutable registry that assigns a small number to every known event type. The numbers are dense, start with zero and follow the sorted
+ * type names, so the same set of types always results in the same numbers. They can be used as index into arrays instead of hashing the
+ * type name on every lookup. The instances passed to the constructor are found by identity first, other instances fall back to a lookup
+ * by name.
+ */
+public final class EventTypeRegistry {
+
+    /** Index returned for unknown event types. */
+    public static final int UNKNOWN = -1;
+
+    private final EventType[] types;
+
+    private final Map<EventType, Integer> byIdentity;
+
+    private final Map<String, Integer> byName;
+
+    private final Set<EventType> typeSet;
+
+    /**
+     * Constructor with all known types.
+     * 
+     * @param eventTypes
+     *            Event types to register. Duplicates are ignored.
+     */
+    public EventTypeRegistry(@NotNull final Collection<EventType> eventTypes) {
+        super();
+        Contract.requireArgNotNull("eventTypes", eventTypes);
+
+        final TreeSet<String> names = new TreeSet<>();
+        for (final EventType eventType : eventTypes) {
+            Contract.requireArgNotNull("eventType", eventType);
+            names.add(eventType.asBaseType());
+        }
+        this.byName = new HashMap<>();
+        for (final String name : names) {
+            byName.put(name, byName.size());
+        }
+        this.types = new EventType[names.size()];
+        this.byIdentity = new IdentityHashMap<>();
+        for (final EventType eventType : eventTypes) {
+            final int index = byName.get(eventType.asBaseType());
+            byIdentity.put(eventType, index);
+            if (types[index] == null) {
+                types[index] = eventType;
+            }
+        }
+        this.typeSet = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(types)));
+    }
+
+    /**
+     * Returns the index of an event type.
+     * 
+     * @param eventType
+     *            Type to find.
+     * 
+     * @return Index or {@link #UNKNOWN} if the type is not registered.
+     */
+    public final int indexOf(@NotNull final EventType eventType) {
+        final Integer index = byIdentity.get(eventType);
+        if (index != null) {
+            return index;
+        }
+        return indexOf(eventType.asBaseType());
+    }
+
+    /**
+     * Returns the index of an event type name.
+     * 
+     * @param typeName
+     *            Name of the type to find.
+     * 
+     * @return Index or {@link #UNKNOWN} if the type is not registered.
+     */
+    public final int indexOf(@NotNull final String typeName) {
+        final Integer index = byName.get(typeName);
+        if (index == null) {
+            return UNKNOWN;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the event type with the given index.
+     * 
+     * @param index
+     *            Index of the type.
+     * 
+     * @return Event type.
+     */
+    @NotNull
+    public final EventType typeOf(final int index) {
+        if (index < 0 || index >= types.length) {
+            throw new IllegalArgumentException("The argument 'index' must be between 0 and " + (types.length - 1) + ", but was: " + index);
+        }
+        return types[index];
+    }
+
+    /**
+     * Returns the number of registered types.
+     * 
+     * @return Number of types and size of arrays indexed by this registry.
+     */
+    public final int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns all registered types.
+     * 
+     * @return Unmodifiable set of types ordered by index.
+     */
+    @NotNull
+    public final Set<EventType> getTypes() {
+        return typeSet;
+    }
+
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.ReadableEventStore;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads a stream once for several projections. All projections that are at the most advanced position share a single read and every
+ * event is deserialized only once for all of them. Projections that lag behind are served after the leaders and read their own slices
+ * from the store until they reached the others within the same call, so they never hold up the leading projections. Every projection has
+ * its own dispatcher and stores its position for the source stream with its own projection service. A projection whose dispatcher
+ * throws an exception keeps its position and is retried with the next call.
+ */
+public final class FanOutProjectionReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FanOutProjectionReader.class);
+
+    private final ReadableEventStore eventStore;
+
+    private final StreamId streamId;
+
+    private final int chunkSize;
+
+    private final List<Projection> projections;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param eventStore
+     *            Event store to read from.
+     * @param streamId
+     *            Unique ID of the stream to read.
+     * @param chunkSize
+     *            Maximum number of events read with one call.
+     */
+    public FanOutProjectionReader(@NotNull final ReadableEventStore eventStore, @NotNull final StreamId streamId, final int chunkSize) {
+        super();
+        Contract.requireArgNotNull("eventStore", eventStore);
+        Contract.requireArgNotNull("streamId", streamId);
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The argument 'chunkSize' must be greater than zero, but was: " + chunkSize);
+        }
+        this.eventStore = eventStore;
+        this.streamId = streamId;
+        this.chunkSize = chunkSize;
+        this.projections = new ArrayList<>();
+    }
+
+    /**
+     * Adds a projection. The current position is read from the projection service with the next call to {@link #readNext()}.
+     * 
+     * @param dispatcher
+     *            Dispatcher of the projection.
+     * @param projectionService
+     *            Service that stores the position of the projection.
+     */
+    public final synchronized void addProjection(@NotNull final EventDispatcher dispatcher,
+            @NotNull final ProjectionService projectionService) {
+        Contract.requireArgNotNull("dispatcher", dispatcher);
+        Contract.requireArgNotNull("projectionService", projectionService);
+        projections.add(new Projection(dispatcher, projectionService));
+    }
+
+    /**
+     * Reads the next chunk of events for all projections and dispatches it.
+     * 
+     * @return TRUE if at least one projection advanced or FALSE if all are at the end of the stream or failed.
+     */
+    public final synchronized boolean readNext() {
+        if (projections.isEmpty()) {
+            return false;
+        }
+
+        long head = -1;
+        for (final Projection projection : projections) {
+            if (projection.position == null) {
+                projection.position = projection.projectionService.readProjectionPosition(streamId);
+            }
+            head = Math.max(head, projection.position);
+        }
+
+        final List<Projection> leaders = new ArrayList<>();
+        final List<Projection> laggers = new ArrayList<>();
+        for (final Projection projection : projections) {
+            if (projection.position == head) {
+                leaders.add(projection);
+            } else {
+                laggers.add(projection);
+            }
+        }
+
+        boolean advanced = false;
+        final StreamEventsSlice slice = eventStore.readEventsForward(streamId, head, chunkSize);
+        final List<CommonEvent> events = deserializeOnce(slice.getEvents(), leaders);
+        for (final Projection leader : leaders) {
+            advanced = dispatch(leader, events, slice.getNextEventNumber()) || advanced;
+        }
+
+        final long target = Math.max(head, slice.getNextEventNumber());
+        for (final Projection lagger : laggers) {
+            advanced = catchUp(lagger, target) || advanced;
+        }
+        return advanced;
+    }
+
+    /**
+     * Reads chunks for a projection that lags behind until it reached the given position, the end of the stream or the dispatcher
+     * failed. The last read is limited to the target, so the projection shares the reads of the leaders with the next call.
+     */
+    private boolean catchUp(final Projection projection, final long target) {
+        boolean advanced = false;
+        while (projection.position < target) {
+            final int count = (int) Math.min(chunkSize, target - projection.position);
+            final StreamEventsSlice slice = eventStore.readEventsForward(streamId, projection.position, count);
+            if (!dispatch(projection, slice.getEvents(), slice.getNextEventNumber())) {
+                break;
+            }
+            advanced = true;
+        }
+        return advanced;
+    }
+
+    private boolean dispatch(final Projection projection, final List<CommonEvent> events, final long nextEventNumber) {
+        if (nextEventNumber == projection.position) {
+            return false;
+        }
+        try {
+            if (!events.isEmpty()) {
+                projection.dispatcher.dispatchCommonEvents(events);
+            }
+        } catch (final RuntimeException ex) {
+            LOG.error("Failed to dispatch events " + projection.position + " to " + nextEventNumber + " of " + streamId.asString()
+                    + " - Will retry", ex);
+            return false;
+        }
+        projection.projectionService.updateProjectionPosition(streamId, nextEventNumber);
+        projection.position = nextEventNumber;
+        return true;
+    }
+
+    private static List<CommonEvent> deserializeOnce(final List<CommonEvent> commonEvents, final List<Projection> leaders) {
+        if (leaders.size() < 2) {
+            return commonEvents;
+        }
+        final Set<String> typeNames = new HashSet<>();
+        for (final Projection leader : leaders) {
+            for (final EventType eventType : leader.dispatcher.getAllTypes()) {
+                typeNames.add(eventType.asBaseType());
+            }
+        }
+        final List<CommonEvent> events = new ArrayList<>(commonEvents.size());
+        for (final CommonEvent commonEvent : commonEvents) {
+            if (!typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                events.add(commonEvent);
+            } else if (commonEvent.getMetaType() == null) {
+                events.add(new SimpleCommonEvent(commonEvent.getId(), commonEvent.getDataType(), commonEvent.getData()));
+            } else {
+                events.add(new SimpleCommonEvent(commonEvent.getId(), commonEvent.getDataType(), commonEvent.getData(),
+                        commonEvent.getMetaType(), commonEvent.getMeta()));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Dispatcher and position of a single projection.
+     */
+    private static final class Projection {
+
+        private final EventDispatcher dispatcher;
+
+        private final ProjectionService projectionService;
+
+        private Long position;
+
+        Projection(final EventDispatcher dispatcher, final ProjectionService projectionService) {
+            this.dispatcher = dispatcher;
+            this.projectionService = projectionService;
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dead letter store that writes every entry as serialized Java object into a file of a local directory. The events must be serializable
+ * with the Java serialization. Files are replaced atomically, so a crash never leaves a partially written entry.<br>
+ * <br>
+ * Reading is restricted by an {@link ObjectInputFilter} that only accepts the dead letter itself, basic JDK value types, the ddd4j and
+ * objects4j base types and the event classes matching a pattern given to the constructor. Files that cannot be read are renamed with the
+ * extension {@value #CORRUPT_EXTENSION} and ignored. The next attempt times are kept in memory, so retries only read the files that are
+ * due. Therefore a directory must only be used by one store instance at a time.
+ */
+public final class FileDeadLetterStore implements DeadLetterStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileDeadLetterStore.class);
+
+    private static final String EXTENSION = ".ser";
+
+    /** Extension of files that could not be read. */
+    public static final String CORRUPT_EXTENSION = ".corrupt";
+
+    private static final String BASE_PATTERN = "maxdepth=64;maxrefs=100000;org.fuin.cqrs4j.DeadLetter;java.lang.*;java.util.*;"
+            + "java.time.**;java.math.*;org.fuin.ddd4j.**;org.fuin.objects4j.**;";
+
+    private final Path dir;
+
+    private final ObjectInputFilter filter;
+
+    /** Next attempt time by identifier of all dead letters that are not permanently failed. */
+    private final Map<UUID, Long> dueIndex;
+
+    /**
+     * Constructor with directory and allowed event classes.
+     * 
+     * @param dir
+     *            Directory for the files. Will be created if it does not exist.
+     * @param eventClassPattern
+     *            Event classes that may be deserialized in the syntax of {@link ObjectInputFilter.Config#createFilter(String)}, for example
+     *            "com.example.events.**;com.example.types.*".
+     */
+    public FileDeadLetterStore(@NotNull final Path dir, @NotNull final String eventClassPattern) {
+        super();
+        Contract.requireArgNotNull("dir", dir);
+        Contract.requireArgNotNull("eventClassPattern", eventClassPattern);
+        if (eventClassPattern.trim().isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventClassPattern' cannot be empty");
+        }
+        this.dir = dir;
+        this.filter = ObjectInputFilter.Config.createFilter(BASE_PATTERN + eventClassPattern + ";!*");
+        this.dueIndex = new HashMap<>();
+        try {
+            Files.createDirectories(dir);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Failed to create directory: " + dir, ex);
+        }
+        for (final DeadLetter deadLetter : findAll()) {
+            index(deadLetter);
+        }
+    }
+
+    @Override
+    public final synchronized void store(@NotNull final DeadLetter deadLetter) {
+        Contract.requireArgNotNull("deadLetter", deadLetter);
+        final Path file = file(deadLetter.getId());
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(dir, deadLetter.getId().toString(), ".tmp");
+            try (final OutputStream out = Files.newOutputStream(tmp); final ObjectOutputStream oout = new ObjectOutputStream(out)) {
+                oout.writeObject(deadLetter);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Failed to write dead letter: " + file, ex);
+        } finally {
+            if (tmp != null) {
+                deleteQuietly(tmp);
+            }
+        }
+        index(deadLetter);
+    }
+
+    @Override
+    public final synchronized void remove(@NotNull final UUID id) {
+        Contract.requireArgNotNull("id", id);
+        final Path file = file(id);
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Failed to delete dead letter: " + file, ex);
+        }
+        dueIndex.remove(id);
+    }
+
+    @Override
+    @NotNull
+    public final synchronized List<DeadLetter> findDue(final long nowMillis) {
+        final List<UUID> dueIds = new ArrayList<>();
+        for (final Map.Entry<UUID, Long> entry : dueIndex.entrySet()) {
+            if (entry.getValue() <= nowMillis) {
+                dueIds.add(entry.getKey());
+            }
+        }
+        final List<DeadLetter> due = new ArrayList<>(dueIds.size());
+        for (final UUID id : dueIds) {
+            final DeadLetter deadLetter = readOrQuarantine(file(id));
+            if (deadLetter == null) {
+                dueIndex.remove(id);
+            } else {
+                index(deadLetter);
+                if (!deadLetter.isPermanentlyFailed() && deadLetter.getNextAttemptMillis() <= nowMillis) {
+                    due.add(deadLetter);
+                }
+            }
+        }
+        due.sort(Comparator.comparingLong(DeadLetter::getNextAttemptMillis));
+        return due;
+    }
+
+    @Override
+    @NotNull
+    public final synchronized List<DeadLetter> findAll() {
+        final List<DeadLetter> deadLetters = new ArrayList<>();
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (final Path file : files) {
+                final DeadLetter deadLetter = readOrQuarantine(file);
+                if (deadLetter != null) {
+                    deadLetters.add(deadLetter);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException("Failed to read directory: " + dir, ex);
+        }
+        return deadLetters;
+    }
+
+    private Path file(final UUID id) {
+        return dir.resolve(id + EXTENSION);
+    }
+
+    private void index(final DeadLetter deadLetter) {
+        if (deadLetter.isPermanentlyFailed()) {
+            dueIndex.remove(deadLetter.getId());
+        } else {
+            dueIndex.put(deadLetter.getId(), deadLetter.getNextAttemptMillis());
+        }
+    }
+
+    private DeadLetter readOrQuarantine(final Path file) {
+        try (final InputStream in = Files.newInputStream(file); final ObjectInputStream oin = new ObjectInputStream(in)) {
+            oin.setObjectInputFilter(filter);
+            return (DeadLetter) oin.readObject();
+        } catch (final NoSuchFileException ex) {
+            return null;
+        } catch (final IOException | ClassNotFoundException | ClassCastException ex) {
+            final Path corrupt = file.resolveSibling(file.getFileName() + CORRUPT_EXTENSION);
+            LOG.error("Failed to read dead letter " + file + " - Moved it to " + corrupt, ex);
+            try {
+                Files.move(file, corrupt, StandardCopyOption.REPLACE_EXISTING);
+            } catch (final IOException ex2) {
+                LOG.error("Failed to move unreadable dead letter: " + file, ex2);
+            }
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ex) {
+            LOG.warn("Failed to delete temporary file: " + file, ex);
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatcher based on {@link java.util.concurrent.Flow} that applies backpressure to the caller. Every handler is wrapped into an
+ * {@link EventHandlerSubscriber} with its own bounded buffer. The dispatch methods block as long as the buffer of any subscriber is full,
+ * so a burst of events can never use more memory than the configured buffers. Use {@link #offerEvent(Event, long, TimeUnit)} to publish
+ * without blocking indefinitely.
+ */
+public final class FlowEventDispatcher implements AsyncEventDispatcher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowEventDispatcher.class);
+
+    private final ExecutorService executor;
+
+    private final SubmissionPublisher<Event> publisher;
+
+    private final List<EventHandlerSubscriber<?>> subscribers;
+
+    private final Set<EventType> types;
+
+    private final Set<String> typeNames;
+
+    private final AtomicLong published;
+
+    /**
+     * Constructor with array of event handlers.
+     * 
+     * @param bufferCapacity
+     *            Maximum number of events buffered per handler. Will be rounded up to the next power of two.
+     * @param requestWindow
+     *            Maximum number of events a handler requests at once.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public FlowEventDispatcher(final int bufferCapacity, final int requestWindow, @NotNull final EventHandler... eventHandlers) {
+        this(bufferCapacity, requestWindow, Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers.
+     * 
+     * @param bufferCapacity
+     *            Maximum number of events buffered per handler. Will be rounded up to the next power of two.
+     * @param requestWindow
+     *            Maximum number of events a handler requests at once.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public FlowEventDispatcher(final int bufferCapacity, final int requestWindow, @NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("The argument 'bufferCapacity' must be greater than zero, but was: " + bufferCapacity);
+        }
+        if (eventHandlers.isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventHandlers' cannot be an empty list");
+        }
+        this.executor = Executors.newCachedThreadPool(new NamedThreadFactory(getClass().getSimpleName()));
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.subscribers = new ArrayList<>();
+        this.published = new AtomicLong();
+        final Set<EventType> eventTypes = new HashSet<>();
+        this.typeNames = new HashSet<>();
+        for (final EventHandler eventHandler : eventHandlers) {
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            eventTypes.add(eventHandler.getEventType());
+            typeNames.add(eventHandler.getEventType().asBaseType());
+            subscribers.add(new EventHandlerSubscriber<>(eventHandler, requestWindow));
+        }
+        this.types = Collections.unmodifiableSet(eventTypes);
+        for (final EventHandlerSubscriber<?> subscriber : subscribers) {
+            publisher.subscribe(subscriber);
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return types;
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        for (final CommonEvent commonEvent : commonEvents) {
+            if (typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                dispatchEvent((Event) commonEvent.getData());
+            }
+        }
+
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        for (final Event event : events) {
+            dispatchEvent(event);
+        }
+
+    }
+
+    /**
+     * Publishes the event to all handlers. Blocks while the buffer of any handler is full.
+     * 
+     * @param event
+     *            Event to dispatch.
+     */
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+        Contract.requireArgNotNull("event", event);
+        publisher.submit(event);
+        published.incrementAndGet();
+    }
+
+    /**
+     * Publishes the event to all handlers, waiting at most the given time for free buffer space. Handlers that have no space left after
+     * the timeout will not receive the event.
+     * 
+     * @param event
+     *            Event to dispatch.
+     * @param timeout
+     *            Maximum time to wait for buffer space.
+     * @param unit
+     *            Unit of the timeout.
+     * 
+     * @return TRUE if all handlers received the event or FALSE if it was dropped for at least one handler.
+     */
+    public final boolean offerEvent(@NotNull final Event event, final long timeout, @NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("event", event);
+        Contract.requireArgNotNull("unit", unit);
+        final int lag = publisher.offer(event, timeout, unit, (subscriber, item) -> {
+            ((EventHandlerSubscriber<?>) subscriber).dropped();
+            return false;
+        });
+        published.incrementAndGet();
+        return lag >= 0;
+    }
+
+    /**
+     * Returns the number of events that were published, but not yet consumed by the slowest handler.
+     * 
+     * @return Estimated lag.
+     */
+    public final int getEstimatedMaximumLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    @Override
+    public final boolean awaitDrained(final long timeout, @NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("unit", unit);
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        final long target = published.get();
+        for (final EventHandlerSubscriber<?> subscriber : subscribers) {
+            while (subscriber.getProcessedCount() < target) {
+                if (System.nanoTime() - end >= 0) {
+                    return false;
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting new events and waits until all handlers processed the events that were already published.
+     */
+    @Override
+    public final void close() {
+        publisher.close();
+        try {
+            for (final EventHandlerSubscriber<?> subscriber : subscribers) {
+                if (!subscriber.awaitCompletion(1, TimeUnit.MINUTES)) {
+                    LOG.warn("Handler " + subscriber.getHandler().getClass().getName() + " did not complete in time");
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdown();
+    }
+
+}
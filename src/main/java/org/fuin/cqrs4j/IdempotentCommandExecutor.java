@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorator that executes every command only once. Commands are identified by their event identifier, so a client that resubmits a
+ * command after a timeout has to send it with the same identifier. The result of a successful execution is kept in a
+ * {@link CommandResultStore} and returned for a resubmitted command without calling the delegate again. A duplicate that arrives while
+ * the first execution is still running waits for it and receives the same result or exception. If the context has a {@link Deadline},
+ * the duplicate waits at most until the deadline and then fails with a {@link DeadlineExceededException} while the first execution
+ * continues. Failed executions are not stored, so the
+ * command can be retried. Results that are NULL cannot be stored and the command will be executed again. If the store fails after a
+ * successful execution, the error is logged and the result is returned anyway, so a resubmission of that command will execute it again.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class IdempotentCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotentCommandExecutor.class);
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final CommandResultStore<RESULT> store;
+
+    private final Map<UUID, CompletableFuture<RESULT>> inFlight;
+
+    private final AtomicLong replayed;
+
+    private final AtomicLong joined;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor that actually executes the commands.
+     * @param store
+     *            Store for the results of completed commands.
+     */
+    public IdempotentCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate,
+            @NotNull final CommandResultStore<RESULT> store) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("store", store);
+        this.delegate = delegate;
+        this.store = store;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.replayed = new AtomicLong();
+        this.joined = new AtomicLong();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final UUID commandId = cmd.getEventId().asBaseType();
+        final RESULT stored = store.find(commandId);
+        if (stored != null) {
+            replayed.incrementAndGet();
+            return stored;
+        }
+
+        final CompletableFuture<RESULT> future = new CompletableFuture<>();
+        final CompletableFuture<RESULT> running = inFlight.putIfAbsent(commandId, future);
+        if (running != null) {
+            joined.incrementAndGet();
+            return await(running, Deadline.of(ctx), commandId);
+        }
+        try {
+            // The first execution may have finished between the lookup and registering the future
+            final RESULT result;
+            final RESULT completed = store.find(commandId);
+            if (completed == null) {
+                result = delegate.execute(ctx, cmd);
+                if (result != null) {
+                    storeResult(commandId, result);
+                }
+            } else {
+                replayed.incrementAndGet();
+                result = completed;
+            }
+            future.complete(result);
+            return result;
+        } catch (final Exception | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(commandId, future);
+        }
+    }
+
+    /**
+     * Returns the number of commands answered with a stored result.
+     * 
+     * @return Number of replayed results.
+     */
+    public final long getReplayedCount() {
+        return replayed.get();
+    }
+
+    /**
+     * Returns the number of duplicates that waited for a concurrent execution of the same command.
+     * 
+     * @return Number of joined executions.
+     */
+    public final long getJoinedCount() {
+        return joined.get();
+    }
+
+    private void storeResult(final UUID commandId, final RESULT result) {
+        try {
+            store.store(commandId, result);
+        } catch (final RuntimeException ex) {
+            // The command was executed, so the caller has to receive its result even if a resubmission will execute it again
+            LOG.error("Failed to store the result of command " + commandId, ex);
+        }
+    }
+
+    private RESULT await(final CompletableFuture<RESULT> future, final Deadline deadline, final UUID commandId)
+            throws AggregateVersionConflictException, AggregateNotFoundException, AggregateVersionNotFoundException,
+            AggregateDeletedException, AggregateAlreadyExistsException, CommandExecutionFailedException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (deadline == null) {
+                        return future.get();
+                    }
+                    return future.get(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                } catch (final InterruptedException ex) {
+                    // The command is executed anyway, so the caller should receive its result
+                    interrupted = true;
+                } catch (final TimeoutException ex) {
+                    throw new DeadlineExceededException("Command " + commandId
+                            + " is still executed by another caller - Outcome unknown after deadline", ex);
+                } catch (final ExecutionException ex) {
+                    CommandFailures.rethrow(ex.getCause());
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Command result store that keeps a limited number of results in memory. Results are evicted in the order they were stored, either
+ * because the maximum number of entries is reached or because they are older than the configured time to live.
+ * 
+ * @param <RESULT>
+ *            Result of the command execution.
+ */
+public final class InMemoryCommandResultStore<RESULT> implements CommandResultStore<RESULT> {
+
+    private final int maxEntries;
+
+    private final long timeToLiveMillis;
+
+    private final Clock clock;
+
+    private final LinkedHashMap<UUID, StoredResult<RESULT>> results;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param maxEntries
+     *            Maximum number of results to keep.
+     * @param timeToLiveMillis
+     *            Time in milliseconds a result is kept after it was stored.
+     */
+    public InMemoryCommandResultStore(final int maxEntries, final long timeToLiveMillis) {
+        this(maxEntries, timeToLiveMillis, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param maxEntries
+     *            Maximum number of results to keep.
+     * @param timeToLiveMillis
+     *            Time in milliseconds a result is kept after it was stored.
+     * @param clock
+     *            Clock used to determine the age of the results.
+     */
+    public InMemoryCommandResultStore(final int maxEntries, final long timeToLiveMillis, @NotNull final Clock clock) {
+        super();
+        Contract.requireArgNotNull("clock", clock);
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The argument 'maxEntries' must be greater than zero, but was: " + maxEntries);
+        }
+        if (timeToLiveMillis < 1) {
+            throw new IllegalArgumentException("The argument 'timeToLiveMillis' must be greater than zero, but was: " + timeToLiveMillis);
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clock = clock;
+        this.results = new LinkedHashMap<>();
+    }
+
+    @Override
+    public final synchronized RESULT find(@NotNull final UUID commandId) {
+        Contract.requireArgNotNull("commandId", commandId);
+        evictExpired(clock.millis());
+        final StoredResult<RESULT> stored = results.get(commandId);
+        if (stored == null) {
+            return null;
+        }
+        return stored.result;
+    }
+
+    @Override
+    public final synchronized void store(@NotNull final UUID commandId, @NotNull final RESULT result) {
+        Contract.requireArgNotNull("commandId", commandId);
+        Contract.requireArgNotNull("result", result);
+        final long now = clock.millis();
+        evictExpired(now);
+        // Remove first, so a replaced result moves to the end of the eviction order
+        results.remove(commandId);
+        results.put(commandId, new StoredResult<>(result, now + timeToLiveMillis));
+        final Iterator<StoredResult<RESULT>> it = results.values().iterator();
+        while (results.size() > maxEntries) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the number of results currently kept.
+     * 
+     * @return Number of results including expired ones that were not evicted yet.
+     */
+    public final synchronized int size() {
+        return results.size();
+    }
+
+    private void evictExpired(final long now) {
+        final Iterator<Map.Entry<UUID, StoredResult<RESULT>>> it = results.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue().expiresMillis <= now) {
+            it.remove();
+        }
+    }
+
+    /**
+     * Result with expiration time.
+     * 
+     * @param <RESULT>
+     *            Result of the command execution.
+     */
+    private static final class StoredResult<RESULT> {
+
+        private final RESULT result;
+
+        private final long expiresMillis;
+
+        StoredResult(final RESULT result, final long expiresMillis) {
+            this.result = result;
+            this.expiresMillis = expiresMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Dead letter store that keeps all entries in memory. The entries are lost if the application stops.
+ */
+public final class InMemoryDeadLetterStore implements DeadLetterStore {
+
+    private final Map<UUID, DeadLetter> deadLetters;
+
+    /**
+     * Default constructor.
+     */
+    public InMemoryDeadLetterStore() {
+        super();
+        this.deadLetters = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public final void store(@NotNull final DeadLetter deadLetter) {
+        Contract.requireArgNotNull("deadLetter", deadLetter);
+        deadLetters.put(deadLetter.getId(), deadLetter);
+    }
+
+    @Override
+    public final void remove(@NotNull final UUID id) {
+        Contract.requireArgNotNull("id", id);
+        deadLetters.remove(id);
+    }
+
+    @Override
+    @NotNull
+    public final List<DeadLetter> findDue(final long nowMillis) {
+        final List<DeadLetter> due = new ArrayList<>();
+        for (final DeadLetter deadLetter : deadLetters.values()) {
+            if (!deadLetter.isPermanentlyFailed() && deadLetter.getNextAttemptMillis() <= nowMillis) {
+                due.add(deadLetter);
+            }
+        }
+        due.sort(Comparator.comparingLong(DeadLetter::getNextAttemptMillis));
+        return due;
+    }
+
+    @Override
+    @NotNull
+    public final List<DeadLetter> findAll() {
+        return new ArrayList<>(deadLetters.values());
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.List;
+import java.util.Set;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Executes commands through a pipeline of {@link CommandInterceptor} instances. The pipeline for every command type is built once in the
+ * constructor from the interceptors that apply to the type, in the order they were given. Every element of a pipeline is an immutable
+ * {@link CommandInterceptorChain} that knows its successor, so executing a command only walks the prebuilt elements and allocates
+ * nothing. Commands of a type that is unknown to the delegate pass a fallback pipeline with all interceptors that decides with
+ * {@link CommandInterceptor#appliesTo(EventType)} on every call, so they are never executed without the interceptors.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class InterceptingCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final EventTypeRegistry registry;
+
+    private final CommandInterceptorChain<CONTEXT, RESULT, CMD>[] pipelines;
+
+    private final CommandInterceptorChain<CONTEXT, RESULT, CMD> fallback;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor at the end of every pipeline.
+     * @param interceptors
+     *            Interceptors in the order they are called.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public InterceptingCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate,
+            @NotNull final List<CommandInterceptor<CONTEXT, RESULT, CMD>> interceptors) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        Contract.requireArgNotNull("interceptors", interceptors);
+        this.delegate = delegate;
+        this.registry = new EventTypeRegistry(delegate.getCommandTypes());
+        this.pipelines = new CommandInterceptorChain[registry.size()];
+        final CommandInterceptorChain<CONTEXT, RESULT, CMD> end = delegate::execute;
+        CommandInterceptorChain<CONTEXT, RESULT, CMD> unknown = end;
+        for (int j = interceptors.size() - 1; j >= 0; j--) {
+            final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor = interceptors.get(j);
+            Contract.requireArgNotNull("interceptor", interceptor);
+            unknown = new CheckingLink<>(interceptor, unknown);
+        }
+        this.fallback = unknown;
+        for (int i = 0; i < pipelines.length; i++) {
+            final EventType type = registry.typeOf(i);
+            CommandInterceptorChain<CONTEXT, RESULT, CMD> chain = end;
+            for (int j = interceptors.size() - 1; j >= 0; j--) {
+                final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor = interceptors.get(j);
+                if (interceptor.appliesTo(type)) {
+                    chain = new Link<>(interceptor, chain);
+                }
+            }
+            pipelines[i] = chain;
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final int index = registry.indexOf(cmd.getEventType());
+        if (index == EventTypeRegistry.UNKNOWN) {
+            return fallback.proceed(ctx, cmd);
+        }
+        return pipelines[index].proceed(ctx, cmd);
+    }
+
+    /**
+     * Element of a pipeline that calls an interceptor with the rest of the pipeline.
+     * 
+     * @param <CONTEXT>
+     *            Type of context for the command execution.
+     * @param <RESULT>
+     *            Result of the command execution.
+     * @param <CMD>
+     *            Type of command to execute.
+     */
+    private static final class Link<CONTEXT, RESULT, CMD extends Command> implements CommandInterceptorChain<CONTEXT, RESULT, CMD> {
+
+        private final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor;
+
+        private final CommandInterceptorChain<CONTEXT, RESULT, CMD> next;
+
+        Link(final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor, final CommandInterceptorChain<CONTEXT, RESULT, CMD> next) {
+            this.interceptor = interceptor;
+            this.next = next;
+        }
+
+        @Override
+        public RESULT proceed(final CONTEXT ctx, final CMD cmd) throws AggregateVersionConflictException, AggregateNotFoundException,
+                AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+                CommandExecutionFailedException {
+            return interceptor.intercept(ctx, cmd, next);
+        }
+
+    }
+
+    /**
+     * Element of the fallback pipeline that only calls the interceptor if it applies to the type of the command.
+     * 
+     * @param <CONTEXT>
+     *            Type of context for the command execution.
+     * @param <RESULT>
+     *            Result of the command execution.
+     * @param <CMD>
+     *            Type of command to execute.
+     */
+    private static final class CheckingLink<CONTEXT, RESULT, CMD extends Command> implements CommandInterceptorChain<CONTEXT, RESULT, CMD> {
+
+        private final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor;
+
+        private final CommandInterceptorChain<CONTEXT, RESULT, CMD> next;
+
+        CheckingLink(final CommandInterceptor<CONTEXT, RESULT, CMD> interceptor, final CommandInterceptorChain<CONTEXT, RESULT, CMD> next) {
+            this.interceptor = interceptor;
+            this.next = next;
+        }
+
+        @Override
+        public RESULT proceed(final CONTEXT ctx, final CMD cmd) throws AggregateVersionConflictException, AggregateNotFoundException,
+                AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+                CommandExecutionFailedException {
+            if (interceptor.appliesTo(cmd.getEventType())) {
+                return interceptor.intercept(ctx, cmd, next);
+            }
+            return next.proceed(ctx, cmd);
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+/**
+ * Tracks completed event numbers that may complete out of order. The low watermark is the first number that is not yet completed, so all
+ * numbers below it are completed. Only a fixed window of numbers above the watermark can be tracked. Not thread safe.
+ */
+final class LowWatermark {
+
+    private final boolean[] completed;
+
+    private long low;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param start
+     *            First number to track.
+     * @param window
+     *            Maximum distance between the watermark and a completed number.
+     */
+    LowWatermark(final long start, final int window) {
+        super();
+        if (window < 1) {
+            throw new IllegalArgumentException("The argument 'window' must be greater than zero, but was: " + window);
+        }
+        this.completed = new boolean[window];
+        this.low = start;
+    }
+
+    /**
+     * Marks a number as completed.
+     * 
+     * @param number
+     *            Number that completed.
+     * 
+     * @return Number of positions the watermark advanced.
+     */
+    int complete(final long number) {
+        if (number < low || number >= low + completed.length) {
+            throw new IllegalArgumentException("The number " + number + " is outside the window [" + low + ", "
+                    + (low + completed.length) + ")");
+        }
+        completed[(int) (number % completed.length)] = true;
+        int advanced = 0;
+        while (completed[(int) (low % completed.length)]) {
+            completed[(int) (low % completed.length)] = false;
+            low++;
+            advanced++;
+        }
+        return advanced;
+    }
+
+    /**
+     * Returns the first number that is not completed.
+     * 
+     * @return Low watermark.
+     */
+    long getLow() {
+        return low;
+    }
+
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.DomainEvent;
+import org.fuin.ddd4j.ddd.EntityId;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches events in parallel using a fixed number of partitions. Every {@link DomainEvent} is assigned to a partition using the hash
+ * code of its typed aggregate root identifier string. All events of the same aggregate are therefore handled strictly in order by the same
+ * worker thread, while events of different aggregates may be handled concurrently. Events that are not domain events are handled by an
+ * additional "unkeyed" partition. The dispatch methods return only after all events of the call were handled. Common events with a type
+ * that is not handled by the delegate are skipped without deserializing them.
+ */
+public final class PartitionedEventDispatcher implements EventDispatcher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedEventDispatcher.class);
+
+    private final EventDispatcher delegate;
+
+    private final int keyedPartitions;
+
+    private final ExecutorService[] workers;
+
+    /**
+     * Constructor with mandatory data.
+     *
+     * @param delegate
+     *            Dispatcher that is used by the workers to handle the events of a partition.
+     * @param keyedPartitions
+     *            Number of partitions for domain events. An additional partition for all other events is always created.
+     */
+    public PartitionedEventDispatcher(@NotNull final EventDispatcher delegate, final int keyedPartitions) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        if (keyedPartitions < 1) {
+            throw new IllegalArgumentException("The argument 'keyedPartitions' must be greater than zero, but was: " + keyedPartitions);
+        }
+        this.delegate = delegate;
+        this.keyedPartitions = keyedPartitions;
+        this.workers = new ExecutorService[keyedPartitions + 1];
+        for (int i = 0; i < workers.length; i++) {
+            final String name = (i < keyedPartitions) ? "partition-" + i : "partition-unkeyed";
+            workers[i] = Executors.newSingleThreadExecutor(new NamedThreadFactory(getClass().getSimpleName() + "-" + name));
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return delegate.getAllTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        final Set<String> typeNames = new HashSet<>();
+        for (final EventType eventType : delegate.getAllTypes()) {
+            typeNames.add(eventType.asBaseType());
+        }
+        final List<Event> events = new ArrayList<>(commonEvents.size());
+        for (final CommonEvent commonEvent : commonEvents) {
+            if (typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                events.add((Event) commonEvent.getData());
+            }
+        }
+        dispatchEvents(events);
+
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+
+        Contract.requireArgNotNull("events", events);
+
+        final List<List<Event>> partitions = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (final Event event : events) {
+            partitions.get(partitionOf(event, keyedPartitions)).add(event);
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            final List<Event> partition = partitions.get(i);
+            if (!partition.isEmpty()) {
+                futures.add(workers[i].submit(() -> delegate.dispatchEvents(partition)));
+            }
+        }
+        awaitAll(futures);
+
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+        Contract.requireArgNotNull("event", event);
+        dispatchEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Stops all workers after the already submitted events are handled.
+     */
+    @Override
+    public final void close() {
+        for (final ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            for (final ExecutorService worker : workers) {
+                if (!worker.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOG.warn("Worker did not terminate in time");
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the partition for an event.
+     *
+     * @param event
+     *            Event to return the partition for.
+     * @param keyedPartitions
+     *            Number of partitions for domain events.
+     *
+     * @return Index of the partition. Events that have no aggregate root identifier will always return {@literal keyedPartitions}.
+     */
+    static int partitionOf(@NotNull final Event event, final int keyedPartitions) {
+        if (event instanceof DomainEvent) {
+            final EntityIdPath path = ((DomainEvent<?>) event).getEntityIdPath();
+            if (path != null) {
+                final EntityId rootId = path.first();
+                return Math.floorMod(rootId.asTypedString().hashCode(), keyedPartitions);
+            }
+        }
+        return keyedPartitions;
+    }
+
+    /**
+     * Waits until all futures are done. The first failure is re-thrown after all futures finished.
+     *
+     * @param futures
+     *            Futures to wait for.
+     */
+    static void awaitAll(@NotNull final List<Future<?>> futures) {
+        RuntimeException failure = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for event dispatch", ex);
+            } catch (final ExecutionException ex) {
+                if (failure == null) {
+                    failure = asRuntimeException(ex.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static RuntimeException asRuntimeException(final Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException("Event dispatch failed", cause);
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that deserializes common events in parallel before they are dispatched. A pool of threads calls
+ * {@link CommonEvent#getData()} for up to a window of events ahead, while the calling thread takes the results in the original order
+ * and passes them in chunks to the delegate. The handlers therefore see the events in stream order and on the calling thread. Only
+ * events with a type known to the delegate are deserialized.
+ */
+public final class PipelinedEventDispatcher implements EventDispatcher, AutoCloseable {
+
+    private final EventDispatcher delegate;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    /**
+     * Constructor with mandatory data.
+     * 
+     * @param delegate
+     *            Dispatcher that receives the deserialized events.
+     * @param threads
+     *            Number of threads used for deserialization.
+     * @param window
+     *            Maximum number of events deserialized ahead of the dispatch. Also the maximum size of the chunks passed to the delegate.
+     */
+    public PipelinedEventDispatcher(@NotNull final EventDispatcher delegate, final int threads, final int window) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        if (threads < 1) {
+            throw new IllegalArgumentException("The argument 'threads' must be greater than zero, but was: " + threads);
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("The argument 'window' must be greater than zero, but was: " + window);
+        }
+        this.delegate = delegate;
+        this.window = window;
+        this.executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory(getClass().getSimpleName()));
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return delegate.getAllTypes();
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+        pipeline(commonEvents.iterator());
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+        pipeline(commonEvents);
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+        delegate.dispatchEvents(events);
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+        delegate.dispatchEvent(event);
+    }
+
+    /**
+     * Stops the deserialization threads.
+     */
+    @Override
+    public final void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pipeline(final Iterator<CommonEvent> commonEvents) {
+        final Set<String> typeNames = new HashSet<>();
+        for (final EventType eventType : delegate.getAllTypes()) {
+            typeNames.add(eventType.asBaseType());
+        }
+        final ArrayDeque<Future<Event>> reorderBuffer = new ArrayDeque<>(window);
+        final List<Event> chunk = new ArrayList<>(window);
+        try {
+            while (true) {
+                while (reorderBuffer.size() < window && commonEvents.hasNext()) {
+                    final CommonEvent commonEvent = commonEvents.next();
+                    if (typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                        reorderBuffer.add(executor.submit(() -> (Event) commonEvent.getData()));
+                    }
+                }
+                if (reorderBuffer.isEmpty()) {
+                    break;
+                }
+                chunk.add(await(reorderBuffer.poll()));
+                if (chunk.size() == window) {
+                    delegate.dispatchEvents(new ArrayList<>(chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                delegate.dispatchEvents(chunk);
+            }
+        } finally {
+            for (final Future<Event> future : reorderBuffer) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Event await(final Future<Event> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for deserialization", ex);
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to deserialize event", cause);
+        }
+    }
+
+}
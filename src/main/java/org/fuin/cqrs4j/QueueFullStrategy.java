@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+/**
+ * Defines what happens if a bounded queue is full when a new element should be added.
+ */
+public enum QueueFullStrategy {
+
+    /** The caller waits until there is space in the queue. */
+    BLOCK,
+
+    /** The oldest element in the queue is removed to make space for the new one. */
+    DROP_OLDEST,
+
+    /** The new element is rejected with a {@link java.util.concurrent.RejectedExecutionException}. */
+    FAIL
+
+}
@@ -0,0 +1,245 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Bounded set that remembers the most recently added UUIDs. If the capacity is reached, the oldest entry is evicted. The UUIDs are stored
+ * as two primitive longs in an open addressing hash table with linear probing, so no objects are allocated per entry. The insertion order
+ * is kept in a ring with twice the capacity. Removed entries are only marked as stale in the ring and dropped when the ring is compacted,
+ * so a removal never causes another entry to be evicted early. All methods are thread safe.
+ */
+final class RecentUuidSet {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final long[] tableHi;
+
+    private final long[] tableLo;
+
+    private final int[] tableRing;
+
+    private final boolean[] used;
+
+    private final long[] ringHi;
+
+    private final long[] ringLo;
+
+    private final boolean[] ringValid;
+
+    private final long[] scratchHi;
+
+    private final long[] scratchLo;
+
+    private int ringHead;
+
+    private int ringCount;
+
+    private int size;
+
+    /**
+     * Constructor with capacity.
+     * 
+     * @param capacity
+     *            Maximum number of UUIDs to remember.
+     */
+    RecentUuidSet(final int capacity) {
+        super();
+        if (capacity < 1 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("The argument 'capacity' must be between 1 and 2^29, but was: " + capacity);
+        }
+        this.capacity = capacity;
+        final int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.mask = tableSize - 1;
+        this.tableHi = new long[tableSize];
+        this.tableLo = new long[tableSize];
+        this.tableRing = new int[tableSize];
+        this.used = new boolean[tableSize];
+        this.ringHi = new long[capacity * 2];
+        this.ringLo = new long[capacity * 2];
+        this.ringValid = new boolean[capacity * 2];
+        this.scratchHi = new long[capacity];
+        this.scratchLo = new long[capacity];
+    }
+
+    /**
+     * Adds an UUID if it is not already contained. Evicts the oldest entry if the set is full.
+     * 
+     * @param uuid
+     *            UUID to add.
+     * 
+     * @return TRUE if the UUID was added or FALSE if it was already contained.
+     */
+    synchronized boolean add(@NotNull final UUID uuid) {
+        Contract.requireArgNotNull("uuid", uuid);
+        final long hi = uuid.getMostSignificantBits();
+        final long lo = uuid.getLeastSignificantBits();
+        if (indexOf(hi, lo) >= 0) {
+            return false;
+        }
+        if (size == capacity) {
+            evictOldest();
+        }
+        if (ringCount == ringHi.length) {
+            compactRing();
+        }
+        final int slot = (ringHead + ringCount) % ringHi.length;
+        ringHi[slot] = hi;
+        ringLo[slot] = lo;
+        ringValid[slot] = true;
+        ringCount++;
+        int i = home(hi, lo);
+        while (used[i]) {
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        tableHi[i] = hi;
+        tableLo[i] = lo;
+        tableRing[i] = slot;
+        size++;
+        return true;
+    }
+
+    /**
+     * Determines if the UUID is contained.
+     * 
+     * @param uuid
+     *            UUID to find.
+     * 
+     * @return TRUE if the UUID is known.
+     */
+    synchronized boolean contains(@NotNull final UUID uuid) {
+        Contract.requireArgNotNull("uuid", uuid);
+        return indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Removes an UUID.
+     * 
+     * @param uuid
+     *            UUID to remove.
+     */
+    synchronized void remove(@NotNull final UUID uuid) {
+        Contract.requireArgNotNull("uuid", uuid);
+        final int index = indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (index >= 0) {
+            ringValid[tableRing[index]] = false;
+            removeAt(index);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of UUIDs in the set.
+     * 
+     * @return Number of entries.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private void evictOldest() {
+        while (!ringValid[ringHead]) {
+            popRingHead();
+        }
+        removeAt(indexOf(ringHi[ringHead], ringLo[ringHead]));
+        popRingHead();
+        size--;
+    }
+
+    private void popRingHead() {
+        ringValid[ringHead] = false;
+        ringHead = (ringHead + 1) % ringHi.length;
+        ringCount--;
+    }
+
+    private void compactRing() {
+        // At most 'capacity' entries are valid, so at least half of the ring is freed. The live entries are copied out first, because
+        // writing them back to the start of the ring would otherwise overwrite entries of a wrapped ring that were not read yet.
+        int live = 0;
+        for (int n = 0; n < ringCount; n++) {
+            final int slot = (ringHead + n) % ringHi.length;
+            if (ringValid[slot]) {
+                scratchHi[live] = ringHi[slot];
+                scratchLo[live] = ringLo[slot];
+                live++;
+            }
+        }
+        Arrays.fill(ringValid, false);
+        for (int i = 0; i < live; i++) {
+            ringHi[i] = scratchHi[i];
+            ringLo[i] = scratchLo[i];
+            ringValid[i] = true;
+            tableRing[indexOf(scratchHi[i], scratchLo[i])] = i;
+        }
+        ringHead = 0;
+        ringCount = live;
+    }
+
+    private int indexOf(final long hi, final long lo) {
+        int i = home(hi, lo);
+        while (used[i]) {
+            if (tableHi[i] == hi && tableLo[i] == lo) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(final int index) {
+        if (index < 0) {
+            return;
+        }
+        // Backward shift deletion keeps the probe sequences intact without tombstones
+        int free = index;
+        int j = index;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) {
+                break;
+            }
+            final int home = home(tableHi[j], tableLo[j]);
+            final boolean between = (free <= j) ? (free < home && home <= j) : (free < home || home <= j);
+            if (!between) {
+                tableHi[free] = tableHi[j];
+                tableLo[free] = tableLo[j];
+                tableRing[free] = tableRing[j];
+                free = j;
+            }
+        }
+        used[free] = false;
+    }
+
+    private int home(final long hi, final long lo) {
+        long h = hi ^ lo;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        h = h ^ (h >>> 33);
+        return (int) h & mask;
+    }
+
+}
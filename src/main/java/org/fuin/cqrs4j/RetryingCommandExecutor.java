@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.Contract;
+
+/**
+ * Decorator that executes a command again if it failed with an {@link AggregateVersionConflictException}. Only commands that do not
+ * expect a specific aggregate version and commands marked with {@link RetrySafeCommand} are retried, all others fail immediately. The
+ * wait time before a retry is chosen randomly between zero and an exponentially growing upper limit, so competing callers do not retry
+ * in lockstep. No retry is started if the maximum number of attempts is reached or the wait would end after the timeout. If the context
+ * has a {@link Deadline} and the wait would end after it, a {@link DeadlineExceededException} with the conflict as cause is thrown instead
+ * of waiting.
+ * 
+ * @param <CONTEXT>
+ *            Type of context for the command execution.
+ * @param <RESULT>
+ *            Result of the command execution.
+ * @param <CMD>
+ *            Type of command to execute.
+ */
+public final class RetryingCommandExecutor<CONTEXT, RESULT, CMD extends Command> implements CommandExecutor<CONTEXT, RESULT, CMD> {
+
+    private final CommandExecutor<CONTEXT, RESULT, CMD> delegate;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final long timeoutMillis;
+
+    private final Map<EventType, AtomicLong> retries;
+
+    /**
+     * Constructor with all data.
+     * 
+     * @param delegate
+     *            Executor that executes the commands.
+     * @param maxAttempts
+     *            Maximum number of executions including the first one.
+     * @param initialBackoffMillis
+     *            Upper limit of the wait time before the first retry. Doubles with every further retry.
+     * @param maxBackoffMillis
+     *            Maximum upper limit of the wait time.
+     * @param timeoutMillis
+     *            Maximum time between the start of the first execution and the start of the last retry.
+     */
+    public RetryingCommandExecutor(@NotNull final CommandExecutor<CONTEXT, RESULT, CMD> delegate, final int maxAttempts,
+            final long initialBackoffMillis, final long maxBackoffMillis, final long timeoutMillis) {
+        super();
+        Contract.requireArgNotNull("delegate", delegate);
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The argument 'maxAttempts' must be greater than zero, but was: " + maxAttempts);
+        }
+        if (initialBackoffMillis < 1) {
+            throw new IllegalArgumentException(
+                    "The argument 'initialBackoffMillis' must be greater than zero, but was: " + initialBackoffMillis);
+        }
+        if (maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException(
+                    "The argument 'maxBackoffMillis' cannot be less than 'initialBackoffMillis', but was: " + maxBackoffMillis);
+        }
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("The argument 'timeoutMillis' cannot be negative, but was: " + timeoutMillis);
+        }
+        this.delegate = delegate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.retries = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getCommandTypes() {
+        return delegate.getCommandTypes();
+    }
+
+    @Override
+    public final RESULT execute(@NotNull final CONTEXT ctx, @NotNull final CMD cmd) throws AggregateVersionConflictException,
+            AggregateNotFoundException, AggregateVersionNotFoundException, AggregateDeletedException, AggregateAlreadyExistsException,
+            CommandExecutionFailedException {
+        Contract.requireArgNotNull("ctx", ctx);
+        Contract.requireArgNotNull("cmd", cmd);
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final Deadline commandDeadline = Deadline.of(ctx);
+        int attempt = 1;
+        while (true) {
+            try {
+                return delegate.execute(ctx, cmd);
+            } catch (final AggregateVersionConflictException ex) {
+                if (attempt >= maxAttempts || !isRetrySafe(cmd)) {
+                    throw ex;
+                }
+                final long backoff = ThreadLocalRandom.current().nextLong(backoffLimit(attempt) + 1);
+                // Compare the difference, as nano time values may overflow
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) - deadline > 0) {
+                    throw ex;
+                }
+                if (commandDeadline != null && backoff >= commandDeadline.getRemaining(TimeUnit.MILLISECONDS)) {
+                    throw new DeadlineExceededException("No time left to retry command '" + cmd.getEventType() + "' after attempt "
+                            + attempt, ex);
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (final InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                retries.computeIfAbsent(cmd.getEventType(), type -> new AtomicLong()).incrementAndGet();
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retries per command type.
+     * 
+     * @return Unmodifiable snapshot of the retry counters.
+     */
+    @NotNull
+    public final Map<EventType, Long> getRetryCounts() {
+        final Map<EventType, Long> counts = new HashMap<>();
+        for (final Map.Entry<EventType, AtomicLong> entry : retries.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Determines if a command may be executed again after a version conflict.
+     * 
+     * @param cmd
+     *            Command to check.
+     * 
+     * @return TRUE if the command is marked as retry safe or does not expect a specific aggregate version.
+     */
+    static boolean isRetrySafe(final Command cmd) {
+        if (cmd instanceof RetrySafeCommand) {
+            return true;
+        }
+        return (cmd instanceof AbstractAggregateCommand) && ((AbstractAggregateCommand<?, ?>) cmd).getAggregateVersion() == null;
+    }
+
+    private long backoffLimit(final int attempt) {
+        final int shift = Math.min(attempt - 1, 30);
+        return Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+    }
+
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous dispatcher that publishes events into a preallocated ring buffer. Every handler has its own worker thread and sequence
+ * and processes all events published since its last run as one batch. Publishing only waits if the slowest handler is a full buffer
+ * behind, so memory usage is bounded by the buffer size. The events of one call are published in order, but the events of concurrent
+ * calls may interleave if the buffer is full. Slots are cleared as soon as all handlers processed them, so the buffer does not keep events
+ * reachable.<br>
+ * <br>
+ * Exceptions thrown by a handler are logged and the event is skipped for that handler, so a failing handler does not stop its worker. An
+ * {@link Error} ends the worker thread. As its handler no longer makes progress, all following publish calls fail with an
+ * {@link IllegalStateException}.
+ */
+public final class RingBufferEventDispatcher implements AsyncEventDispatcher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferEventDispatcher.class);
+
+    private final Event[] ring;
+
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+
+    private final AtomicLong cursor;
+
+    private final Object clearLock;
+
+    private volatile long cleared;
+
+    private final HandlerWorker[] workers;
+
+    private final Set<EventType> types;
+
+    private final Set<String> typeNames;
+
+    private volatile boolean running;
+
+    private volatile Error failure;
+
+    /**
+     * Constructor with array of event handlers.
+     * 
+     * @param bufferSize
+     *            Number of slots in the ring buffer. Must be a power of two.
+     * @param waitStrategy
+     *            Strategy used by producers and workers for waiting.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public RingBufferEventDispatcher(final int bufferSize, @NotNull final WaitStrategy waitStrategy,
+            @NotNull final EventHandler... eventHandlers) {
+        this(bufferSize, waitStrategy, Arrays.asList(eventHandlers));
+    }
+
+    /**
+     * Constructor with list of event handlers.
+     * 
+     * @param bufferSize
+     *            Number of slots in the ring buffer. Must be a power of two.
+     * @param waitStrategy
+     *            Strategy used by producers and workers for waiting.
+     * @param eventHandlers
+     *            Event handlers.
+     */
+    @SuppressWarnings("rawtypes")
+    public RingBufferEventDispatcher(final int bufferSize, @NotNull final WaitStrategy waitStrategy,
+            @NotNull final List<EventHandler> eventHandlers) {
+        super();
+        Contract.requireArgNotNull("waitStrategy", waitStrategy);
+        Contract.requireArgNotNull("eventHandlers", eventHandlers);
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("The argument 'bufferSize' must be a power of two, but was: " + bufferSize);
+        }
+        if (eventHandlers.isEmpty()) {
+            throw new IllegalArgumentException("The argument 'eventHandlers' cannot be an empty list");
+        }
+        this.ring = new Event[bufferSize];
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+        this.cursor = new AtomicLong(-1);
+        this.clearLock = new Object();
+        this.cleared = -1;
+        this.running = true;
+
+        final Set<EventType> eventTypes = new HashSet<>();
+        this.typeNames = new HashSet<>();
+        this.workers = new HandlerWorker[eventHandlers.size()];
+        final NamedThreadFactory threadFactory = new NamedThreadFactory(getClass().getSimpleName());
+        for (int i = 0; i < workers.length; i++) {
+            final EventHandler eventHandler = eventHandlers.get(i);
+            Contract.requireArgNotNull("eventHandler", eventHandler);
+            eventTypes.add(eventHandler.getEventType());
+            typeNames.add(eventHandler.getEventType().asBaseType());
+            workers[i] = new HandlerWorker(eventHandler);
+        }
+        this.types = Collections.unmodifiableSet(eventTypes);
+        for (final HandlerWorker worker : workers) {
+            worker.thread = threadFactory.newThread(worker);
+            worker.thread.start();
+        }
+    }
+
+    @Override
+    @NotNull
+    public final Set<EventType> getAllTypes() {
+        return types;
+    }
+
+    @Override
+    public final void dispatchCommonEvents(@NotNull final List<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        final List<Event> events = new ArrayList<>(commonEvents.size());
+        for (final CommonEvent commonEvent : commonEvents) {
+            if (typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                events.add((Event) commonEvent.getData());
+            }
+        }
+        publish(events);
+
+    }
+
+    @Override
+    public final void dispatchEvents(@NotNull final List<Event> events) {
+        Contract.requireArgNotNull("events", events);
+        publish(events);
+    }
+
+    @Override
+    public final void dispatchEvent(@NotNull final Event event) {
+        Contract.requireArgNotNull("event", event);
+        publish(Collections.singletonList(event));
+    }
+
+    @Override
+    public final boolean awaitDrained(final long timeout, @NotNull final TimeUnit unit) {
+        Contract.requireArgNotNull("unit", unit);
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        final long target = cursor.get();
+        while (minimumSequence() < target) {
+            if (failure != null || System.nanoTime() - end >= 0) {
+                return false;
+            }
+            waitStrategy.idle();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of published events that were not yet processed by the slowest handler.
+     * 
+     * @return Number of pending events.
+     */
+    public final long getBacklog() {
+        return cursor.get() - minimumSequence();
+    }
+
+    /**
+     * Stops accepting new events and waits until the worker threads processed all events that were already published.
+     */
+    @Override
+    public final void close() {
+        synchronized (this) {
+            running = false;
+        }
+        try {
+            for (final HandlerWorker worker : workers) {
+                worker.thread.join();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(final List<Event> events) {
+        int index = 0;
+        while (index < events.size()) {
+            final int count = tryPublish(events, index);
+            if (count == 0) {
+                // Wait without holding the monitor, so a full buffer does not block other producers and close()
+                waitStrategy.idle();
+            }
+            index = index + count;
+        }
+    }
+
+    private synchronized int tryPublish(final List<Event> events, final int index) {
+        if (!running) {
+            throw new IllegalStateException("The dispatcher was already closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("A worker thread was stopped by an error", failure);
+        }
+        final long current = cursor.get();
+        final int free = (int) (ring.length - (current - cleared));
+        if (free <= 0) {
+            return 0;
+        }
+        final int count = Math.min(free, events.size() - index);
+        for (int i = 0; i < count; i++) {
+            ring[(int) (current + 1 + i) & mask] = events.get(index + i);
+        }
+        cursor.set(current + count);
+        return count;
+    }
+
+    private void clearProcessed() {
+        synchronized (clearLock) {
+            final long min = minimumSequence();
+            for (long seq = cleared + 1; seq <= min; seq++) {
+                ring[(int) seq & mask] = null;
+            }
+            if (min > cleared) {
+                cleared = min;
+            }
+        }
+    }
+
+    private long minimumSequence() {
+        long min = Long.MAX_VALUE;
+        for (final HandlerWorker worker : workers) {
+            min = Math.min(min, worker.sequence.get());
+        }
+        return min;
+    }
+
+    /**
+     * Processes all events for one handler.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private final class HandlerWorker implements Runnable {
+
+        private final EventHandler handler;
+
+        private final EventType eventType;
+
+        private final AtomicLong sequence;
+
+        private Thread thread;
+
+        HandlerWorker(final EventHandler handler) {
+            this.handler = handler;
+            this.eventType = handler.getEventType();
+            this.sequence = new AtomicLong(-1);
+        }
+
+        @Override
+        public void run() {
+            try {
+                process();
+            } catch (final Error ex) {
+                LOG.error("Worker of handler " + handler.getClass().getName() + " was stopped by an error", ex);
+                failure = ex;
+                throw ex;
+            }
+        }
+
+        private void process() {
+            long next = 0;
+            while (true) {
+                final long available = cursor.get();
+                if (available >= next) {
+                    handleRange(next, available);
+                    sequence.set(available);
+                    clearProcessed();
+                    next = available + 1;
+                } else if (!running) {
+                    if (cursor.get() < next) {
+                        return;
+                    }
+                } else {
+                    waitStrategy.idle();
+                }
+            }
+        }
+
+        private void handleRange(final long from, final long to) {
+            if (handler instanceof BatchEventHandler) {
+                final List<Event> batch = new ArrayList<>();
+                for (long seq = from; seq <= to; seq++) {
+                    final Event event = ring[(int) seq & mask];
+                    if (eventType.equals(event.getEventType())) {
+                        batch.add(event);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        ((BatchEventHandler) handler).handleBatch(Collections.unmodifiableList(batch));
+                    } catch (final Exception ex) {
+                        LOG.error("Handler " + handler.getClass().getName() + " failed to handle " + batch.size() + " events", ex);
+                    }
+                }
+            } else {
+                for (long seq = from; seq <= to; seq++) {
+                    final Event event = ring[(int) seq & mask];
+                    if (eventType.equals(event.getEventType())) {
+                        try {
+                            handler.handle(event);
+                        } catch (final Exception ex) {
+                            LOG.error("Handler " + handler.getClass().getName() + " failed to handle event " + event.getEventId(), ex);
+                        }
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -19,10 +19,14 @@ package org.fuin.cqrs4j;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jakarta.validation.constraints.NotNull;
 
@@ -30,15 +34,31 @@ import org.fuin.ddd4j.ddd.Event;
 import org.fuin.ddd4j.ddd.EventType;
 import org.fuin.esc.api.CommonEvent;
 import org.fuin.objects4j.common.Contract;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Registry with all event handlers.
+ * Registry with all event handlers. Events are split into contiguous runs of the same type while they are deserialized and every run is
+ * dispatched as soon as the next type starts. {@link BatchEventHandler} instances receive each run with a single call, all other
+ * handlers of the type receive the events one by one in event order. If an event cannot be deserialized, the events before it are
+ * dispatched before the exception is passed to the caller.<br>
+ * <br>
+ * Common events are only deserialized if the name of their data type is equal to the name of an event type that has at least one
+ * handler. The data type is the name the event was serialized with, so this requires that the serializer registers every event class
+ * with {@link EventType#asBaseType()} as type name. Events stored under any other name are skipped without deserialization, counted with
+ * {@link #getSkippedCommonEventCount()} and logged on debug level.
  */
 public final class SimpleEventDispatcher implements EventDispatcher {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SimpleEventDispatcher.class);
+
     @SuppressWarnings("rawtypes")
     private final Map<EventType, List<EventHandler>> eventHandlers;
 
+    private final Set<String> typeNames;
+
+    private final AtomicLong skippedCommonEvents;
+
     /**
      * Constructor with array of event handlers.
      * 
@@ -72,6 +92,11 @@ public final class SimpleEventDispatcher implements EventDispatcher {
             }
             handlers.add(eventHandler);
         }
+        this.typeNames = new HashSet<>();
+        for (final EventType eventType : this.eventHandlers.keySet()) {
+            this.typeNames.add(eventType.asBaseType());
+        }
+        this.skippedCommonEvents = new AtomicLong();
     }
 
     @Override
@@ -85,10 +110,7 @@ public final class SimpleEventDispatcher implements EventDispatcher {
 
         Contract.requireArgNotNull("commonEvents", commonEvents);
 
-        for (final CommonEvent commonEvent : commonEvents) {
-            final Event event = (Event) commonEvent.getData();
-            dispatchEvent(event);
-        }
+        dispatchCommonRuns(commonEvents.iterator(), Integer.MAX_VALUE);
     }
 
     @Override
@@ -96,9 +118,15 @@ public final class SimpleEventDispatcher implements EventDispatcher {
 
         Contract.requireArgNotNull("events", events);
 
+        final List<Event> run = new ArrayList<>();
         for (final Event event : events) {
-            dispatchEvent(event);
+            if (!run.isEmpty() && !run.get(0).getEventType().equals(event.getEventType())) {
+                dispatchRun(run);
+                run.clear();
+            }
+            run.add(event);
         }
+        dispatchRun(run);
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -115,4 +143,103 @@ public final class SimpleEventDispatcher implements EventDispatcher {
         }
     }
 
+    /**
+     * Dispatches the common events without collecting all of them in a list. Runs of the same type are limited to
+     * {@link EventDispatcher#STREAM_CHUNK_SIZE} events.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     */
+    @Override
+    public final void dispatchCommonEvents(@NotNull final Iterator<CommonEvent> commonEvents) {
+
+        Contract.requireArgNotNull("commonEvents", commonEvents);
+
+        dispatchCommonRuns(commonEvents, STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Deserializes the common events with a known type and dispatches contiguous runs of the same type.
+     * 
+     * @param commonEvents
+     *            Events to dispatch.
+     * @param maxRun
+     *            Maximum number of events in a run.
+     */
+    private void dispatchCommonRuns(final Iterator<CommonEvent> commonEvents, final int maxRun) {
+        final List<Event> run = new ArrayList<>();
+        while (commonEvents.hasNext()) {
+            final CommonEvent commonEvent = commonEvents.next();
+            if (!typeNames.contains(commonEvent.getDataType().asBaseType())) {
+                skippedCommonEvents.incrementAndGet();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Skipped event " + commonEvent.getId() + " - No handler for data type: " + commonEvent.getDataType());
+                }
+                continue;
+            }
+            final Event event;
+            try {
+                event = (Event) commonEvent.getData();
+            } catch (final RuntimeException ex) {
+                // Events before the broken one were read successfully and are not held back
+                dispatchRun(run);
+                throw ex;
+            }
+            if (!run.isEmpty() && (run.size() >= maxRun || !run.get(0).getEventType().equals(event.getEventType()))) {
+                dispatchRun(run);
+                run.clear();
+            }
+            run.add(event);
+        }
+        dispatchRun(run);
+    }
+
+    /**
+     * Dispatches a run of events with the same type to all handlers of that type. Batch handlers receive the whole run, consecutive other
+     * handlers receive it event by event.
+     * 
+     * @param run
+     *            Events of the same type. The list is only passed as unmodifiable view and may be reused after the call.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void dispatchRun(final List<Event> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        final List<EventHandler> handlers = eventHandlers.get(run.get(0).getEventType());
+        if (handlers == null) {
+            return;
+        }
+        final int count = handlers.size();
+        int i = 0;
+        while (i < count) {
+            final EventHandler handler = handlers.get(i);
+            if (handler instanceof BatchEventHandler) {
+                ((BatchEventHandler) handler).handleBatch(Collections.unmodifiableList(run));
+                i++;
+            } else {
+                int end = i + 1;
+                while (end < count && !(handlers.get(end) instanceof BatchEventHandler)) {
+                    end++;
+                }
+                for (final Event event : run) {
+                    for (int j = i; j < end; j++) {
+                        handlers.get(j).handle(event);
+                    }
+                }
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of common events that were not deserialized, because no handler was registered for an event type with the name
+     * of their data type.
+     * 
+     * @return Number of skipped common events since creation of the dispatcher.
+     */
+    public final long getSkippedCommonEventCount() {
+        return skippedCommonEvents.get();
+    }
+
 }
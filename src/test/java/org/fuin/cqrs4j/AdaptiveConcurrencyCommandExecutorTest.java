@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class AdaptiveConcurrencyCommandExecutorTest {
+
+    @Test
+    public final void testLimitGrowsWithConstantLatency() throws Exception {
+
+        // PREPARE
+        final SleepingExecutor delegate = new SleepingExecutor(null);
+        delegate.sleepMillis = 2;
+        final AdaptiveConcurrencyCommandExecutor<String, SimpleResult, MyCommand> testee = new AdaptiveConcurrencyCommandExecutor<>(
+                delegate, 1, 1, 10, 0, Function.identity());
+
+        // TEST
+        for (int i = 0; i < 5; i++) {
+            testee.execute("ctx", command());
+        }
+
+        // VERIFY
+        assertThat(testee.getLimit()).isGreaterThan(1);
+        assertThat(testee.getInFlight()).isEqualTo(0);
+
+    }
+
+    @Test
+    public final void testLimitShrinksWithGrowingLatency() throws Exception {
+
+        // PREPARE
+        final SleepingExecutor delegate = new SleepingExecutor(null);
+        final AdaptiveConcurrencyCommandExecutor<String, SimpleResult, MyCommand> testee = new AdaptiveConcurrencyCommandExecutor<>(
+                delegate, 20, 2, 20, 0, Function.identity());
+        delegate.sleepMillis = 1;
+        for (int i = 0; i < 3; i++) {
+            testee.execute("ctx", command());
+        }
+
+        // TEST
+        delegate.sleepMillis = 30;
+        for (int i = 0; i < 10; i++) {
+            testee.execute("ctx", command());
+        }
+
+        // VERIFY
+        assertThat(testee.getLimit()).isLessThan(20);
+        assertThat(testee.getLimit()).isGreaterThanOrEqualTo(2);
+
+    }
+
+    @Test
+    public final void testRejectWhenLimitReached() throws Exception {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final SleepingExecutor delegate = new SleepingExecutor(release);
+        final AdaptiveConcurrencyCommandExecutor<String, SimpleResult, MyCommand> testee = new AdaptiveConcurrencyCommandExecutor<>(
+                delegate, 1, 1, 1, 10, Function.identity());
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final Future<SimpleResult> running = pool.submit(() -> testee.execute("ctx", command()));
+        delegate.started.await();
+
+        // TEST
+        final SimpleResult rejected = testee.execute("ctx", command());
+        release.countDown();
+
+        // VERIFY
+        assertThat(rejected.getType()).isEqualTo(ResultType.ERROR);
+        assertThat(rejected.getCode()).isEqualTo(Cqrs4JUtils.OVERLOADED);
+        assertThat(running.get().getType()).isEqualTo(ResultType.OK);
+        assertThat(testee.getRejectedCount()).isEqualTo(1L);
+        pool.shutdown();
+
+    }
+
+    private static MyCommand command() {
+        return new MyCommand(new EntityIdPath(new AId(1L)), null);
+    }
+
+    private static class SleepingExecutor implements CommandExecutor<String, SimpleResult, MyCommand> {
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile long sleepMillis;
+
+        public SleepingExecutor(CountDownLatch release) {
+            super();
+            this.release = release;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(new MyCommand().getEventType());
+        }
+
+        @Override
+        public SimpleResult execute(String ctx, MyCommand cmd) {
+            started.countDown();
+            try {
+                if (release != null) {
+                    release.await();
+                }
+                Thread.sleep(sleepMillis);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return SimpleResult.ok();
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class AdmissionControlCommandExecutorTest {
+
+    private static final EventType TYPE = new MyCommand().getEventType();
+
+    @Test
+    public final void testRateLimitRejectsCommands() throws Exception {
+
+        // PREPARE
+        final BlockingExecutor delegate = new BlockingExecutor(null);
+        final AdmissionControlCommandExecutor<String, SimpleResult, MyCommand> testee = new AdmissionControlCommandExecutor<>(delegate,
+                Collections.singletonMap(TYPE, new AdmissionLimit(0.001, 2, 10)), Function.identity());
+
+        // TEST
+        final SimpleResult first = testee.execute("ctx", command());
+        final SimpleResult second = testee.execute("ctx", command());
+        final SimpleResult third = testee.execute("ctx", command());
+
+        // VERIFY
+        assertThat(first.getType()).isEqualTo(ResultType.OK);
+        assertThat(second.getType()).isEqualTo(ResultType.OK);
+        assertThat(third.getType()).isEqualTo(ResultType.ERROR);
+        assertThat(third.getCode()).isEqualTo(Cqrs4JUtils.OVERLOADED);
+        assertThat(testee.getAdmittedCounts()).isEqualTo(Collections.singletonMap(TYPE, 2L));
+        assertThat(testee.getRejectedCounts()).isEqualTo(Collections.singletonMap(TYPE, 1L));
+
+    }
+
+    @Test
+    public final void testConcurrencyLimitRejectsCommands() throws Exception {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingExecutor delegate = new BlockingExecutor(release);
+        final AdmissionControlCommandExecutor<String, SimpleResult, MyCommand> testee = new AdmissionControlCommandExecutor<>(delegate,
+                Collections.singletonMap(TYPE, new AdmissionLimit(1000, 1000, 1)), Function.identity());
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final Future<SimpleResult> running = pool.submit(() -> testee.execute("ctx", command()));
+        delegate.started.await();
+
+        // TEST
+        final SimpleResult rejected = testee.execute("ctx", command());
+        release.countDown();
+
+        // VERIFY
+        assertThat(rejected.getCode()).isEqualTo(Cqrs4JUtils.OVERLOADED);
+        assertThat(running.get().getType()).isEqualTo(ResultType.OK);
+        assertThat(testee.execute("ctx", command()).getType()).isEqualTo(ResultType.OK);
+        assertThat(testee.getAdmittedCounts()).isEqualTo(Collections.singletonMap(TYPE, 2L));
+        pool.shutdown();
+
+    }
+
+    @Test
+    public final void testTypeWithoutLimitIsAlwaysExecuted() throws Exception {
+
+        // PREPARE
+        final Map<EventType, AdmissionLimit> limits = Collections.emptyMap();
+        final AdmissionControlCommandExecutor<String, SimpleResult, MyCommand> testee = new AdmissionControlCommandExecutor<>(
+                new BlockingExecutor(null), limits, Function.identity());
+
+        // TEST & VERIFY
+        for (int i = 0; i < 100; i++) {
+            assertThat(testee.execute("ctx", command()).getType()).isEqualTo(ResultType.OK);
+        }
+        assertThat(testee.getRejectedCounts()).isEmpty();
+
+    }
+
+    private static MyCommand command() {
+        return new MyCommand(new EntityIdPath(new AId(1L)), null);
+    }
+
+    private static class BlockingExecutor implements CommandExecutor<String, SimpleResult, MyCommand> {
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        public BlockingExecutor(CountDownLatch release) {
+            super();
+            this.release = release;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(TYPE);
+        }
+
+        @Override
+        public SimpleResult execute(String ctx, MyCommand cmd) {
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return SimpleResult.ok();
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
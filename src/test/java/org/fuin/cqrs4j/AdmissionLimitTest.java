@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class AdmissionLimitTest {
+
+    @Test
+    public final void testCreate() {
+
+        // TEST
+        final AdmissionLimit testee = new AdmissionLimit(2.5, 10, 3);
+
+        // VERIFY
+        assertThat(testee.getPermitsPerSecond()).isEqualTo(2.5);
+        assertThat(testee.getBurst()).isEqualTo(10);
+        assertThat(testee.getMaxConcurrent()).isEqualTo(3);
+        assertThat(testee.toString()).isEqualTo("AdmissionLimit [permitsPerSecond=2.5, burst=10, maxConcurrent=3]");
+
+    }
+
+    @Test
+    public final void testInvalidArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit(Double.NaN, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionLimit(1, 1, 0));
+
+    }
+
+}
+// CHECKSTYLE:ON
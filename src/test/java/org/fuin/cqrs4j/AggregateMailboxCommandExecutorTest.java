@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.AggregateVersion;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class AggregateMailboxCommandExecutorTest {
+
+    @Test
+    public final void testSerializesPerAggregateRoot() throws Exception {
+
+        // PREPARE
+        final TrackingExecutor delegate = new TrackingExecutor(null);
+        final AggregateMailboxCommandExecutor<String, Void, MyCommand> testee = new AggregateMailboxCommandExecutor<>(delegate);
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        final List<Future<Void>> futures = new ArrayList<>();
+
+        // TEST
+        for (int i = 0; i < 200; i++) {
+            final MyCommand cmd = command(i % 4);
+            futures.add(pool.submit(() -> testee.execute("ctx", cmd)));
+        }
+        for (final Future<Void> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // VERIFY
+        assertThat(delegate.getMaxPerRoot()).isEqualTo(1);
+        assertThat(delegate.getExecuted()).isEqualTo(200);
+        assertThat(testee.getMailboxCount()).isEqualTo(0);
+
+    }
+
+    @Test
+    public final void testDifferentRootsRunInParallel() throws Exception {
+
+        // PREPARE
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final TrackingExecutor delegate = new TrackingExecutor(bothRunning);
+        final AggregateMailboxCommandExecutor<String, Void, MyCommand> testee = new AggregateMailboxCommandExecutor<>(delegate);
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        // TEST
+        final Future<Void> f1 = pool.submit(() -> testee.execute("ctx", command(1)));
+        final Future<Void> f2 = pool.submit(() -> testee.execute("ctx", command(2)));
+
+        // VERIFY
+        f1.get(10, TimeUnit.SECONDS);
+        f2.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertThat(delegate.getExecuted()).isEqualTo(2);
+
+    }
+
+    private static MyCommand command(final long id) {
+        return new MyCommand(new EntityIdPath(new AId(id)), new AggregateVersion(1));
+    }
+
+    private static class TrackingExecutor implements CommandExecutor<String, Void, MyCommand> {
+
+        private final CountDownLatch latch;
+
+        private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+
+        private final AtomicInteger maxPerRoot = new AtomicInteger();
+
+        private final AtomicInteger executed = new AtomicInteger();
+
+        public TrackingExecutor(CountDownLatch latch) {
+            super();
+            this.latch = latch;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(new MyCommand().getEventType());
+        }
+
+        @Override
+        public Void execute(String ctx, MyCommand cmd) {
+            final AtomicInteger counter = running.computeIfAbsent(cmd.getAggregateRootId().asTypedString(), k -> new AtomicInteger());
+            final int current = counter.incrementAndGet();
+            maxPerRoot.accumulateAndGet(current, Math::max);
+            try {
+                if (latch != null) {
+                    latch.countDown();
+                    if (!latch.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Commands did not run in parallel");
+                    }
+                } else {
+                    Thread.sleep(1);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                counter.decrementAndGet();
+            }
+            executed.incrementAndGet();
+            return null;
+        }
+
+        public int getMaxPerRoot() {
+            return maxPerRoot.get();
+        }
+
+        public int getExecuted() {
+            return executed.get();
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.MultiCommandExecutorTest.MyCommand;
+import org.fuin.cqrs4j.MultiCommandExecutorTest.MyContext;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link AsyncCommandExecutorAdapter}.
+ */
+public class AsyncCommandExecutorAdapterTest {
+
+    private static final EventType MY_COMMAND = new MyCommand().getEventType();
+
+    @Test
+    public final void testExecuteOnExecutor() throws Exception {
+
+        // PREPARE
+        final ExecutorService executor = AsyncCommandExecutorAdapter.newPerCommandExecutor();
+        final AsyncCommandExecutorAdapter<MyContext, Thread, MyCommand> testee = new AsyncCommandExecutorAdapter<>(
+                new ThrowingExecutor(null), executor);
+
+        try {
+
+            // TEST
+            final CompletableFuture<Thread> future = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+            // VERIFY
+            assertThat(future.get(10, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+            assertThat(testee.getCommandTypes()).containsExactly(MY_COMMAND);
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public final void testExecuteOnPerCommandExecutorByDefault() throws Exception {
+
+        // PREPARE
+        final AsyncCommandExecutorAdapter<MyContext, Thread, MyCommand> testee = new AsyncCommandExecutorAdapter<>(
+                new ThrowingExecutor(null));
+
+        // TEST
+        final CompletableFuture<Thread> first = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+        final CompletableFuture<Thread> second = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+        // VERIFY
+        assertThat(first.get(10, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+        assertThat(second.get(10, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+        assertThat(testee.getCommandTypes()).containsExactly(MY_COMMAND);
+
+    }
+
+    @Test
+    public final void testErrorCompletesFutureExceptionally() throws Exception {
+
+        // PREPARE
+        final AssertionError error = new AssertionError("Broken");
+        final AsyncCommandExecutorAdapter<MyContext, Thread, MyCommand> testee = new AsyncCommandExecutorAdapter<>(
+                new ThrowingExecutor(error), Runnable::run);
+
+        // TEST
+        final CompletableFuture<Thread> future = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+        // VERIFY
+        assertThat(future.isDone()).isTrue();
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get());
+        assertThat(ex.getCause()).isSameAs(error);
+
+    }
+
+    @Test
+    public final void testRejectedExecution() throws Exception {
+
+        // PREPARE
+        final AsyncCommandExecutorAdapter<MyContext, Thread, MyCommand> testee = new AsyncCommandExecutorAdapter<>(
+                new ThrowingExecutor(null), command -> {
+                    throw new RejectedExecutionException("Full");
+                });
+
+        // TEST
+        final CompletableFuture<Thread> future = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+        // VERIFY
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get());
+        assertThat(ex.getCause()).isInstanceOf(RejectedExecutionException.class);
+
+    }
+
+    private static class ThrowingExecutor implements CommandExecutor<MyContext, Thread, MyCommand> {
+
+        private final Error error;
+
+        public ThrowingExecutor(final Error error) {
+            super();
+            this.error = error;
+        }
+
+        @Override
+        public final Set<EventType> getCommandTypes() {
+            return Collections.singleton(MY_COMMAND);
+        }
+
+        @Override
+        public final Thread execute(final MyContext ctx, final MyCommand cmd) {
+            if (error != null) {
+                throw error;
+            }
+            return Thread.currentThread();
+        }
+
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.SimpleStreamId;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class AsyncEventProcessorTest {
+
+    private static final StreamId STREAM_ID = new SimpleStreamId("projection");
+
+    @Test
+    public final void testPositionOnlyAdvancesContiguously() throws InterruptedException {
+
+        // PREPARE
+        final ManualAsyncEventHandler handler = new ManualAsyncEventHandler();
+        final RecordingProjectionService projectionService = new RecordingProjectionService(10);
+        final AsyncEventProcessor testee = new AsyncEventProcessor(projectionService, STREAM_ID, 10, handler);
+
+        // TEST
+        testee.process(new StreamEventsSlice(10, events(3), 13, false));
+        handler.complete(2);
+        handler.complete(1);
+
+        // VERIFY
+        assertThat(testee.getPosition()).isEqualTo(10L);
+        assertThat(projectionService.getPositions()).isEmpty();
+
+        handler.complete(0);
+        assertThat(testee.awaitCompletion(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(testee.getPosition()).isEqualTo(13L);
+        assertThat(projectionService.getPositions()).containsExactly(13L);
+
+    }
+
+    @Test
+    public final void testWindowBlocksDispatch() throws InterruptedException {
+
+        // PREPARE
+        final ManualAsyncEventHandler handler = new ManualAsyncEventHandler();
+        final RecordingProjectionService projectionService = new RecordingProjectionService(0);
+        final AsyncEventProcessor testee = new AsyncEventProcessor(projectionService, STREAM_ID, 2, handler);
+        final List<CommonEvent> events = events(3);
+        testee.process(events.get(0), 0);
+        testee.process(events.get(1), 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            testee.process(events.get(2), 2);
+            started.countDown();
+        });
+
+        // TEST
+        thread.start();
+
+        // VERIFY
+        assertThat(started.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        handler.complete(1);
+        assertThat(started.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        handler.complete(0);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        handler.complete(2);
+        assertThat(testee.awaitCompletion(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(projectionService.getPositions()).containsExactly(2L, 3L);
+
+    }
+
+    @Test
+    public final void testFailureStopsPosition() throws InterruptedException {
+
+        // PREPARE
+        final ManualAsyncEventHandler handler = new ManualAsyncEventHandler();
+        final RecordingProjectionService projectionService = new RecordingProjectionService(0);
+        final AsyncEventProcessor testee = new AsyncEventProcessor(projectionService, STREAM_ID, 10, handler);
+        final List<CommonEvent> events = events(3);
+        testee.process(new StreamEventsSlice(0, events.subList(0, 2), 2, false));
+
+        // TEST
+        handler.complete(0);
+        handler.fail(1);
+
+        // VERIFY
+        assertThat(testee.awaitCompletion(1, TimeUnit.SECONDS)).isFalse();
+        assertThat(testee.getPosition()).isEqualTo(1L);
+        assertThat(projectionService.getPositions()).containsExactly(1L);
+        assertThrows(IllegalStateException.class, () -> testee.process(events.get(2), 2));
+
+    }
+
+    @Test
+    public final void testInterruptedProcessDoesNotConsumeNumber() throws InterruptedException {
+
+        // PREPARE
+        final ManualAsyncEventHandler handler = new ManualAsyncEventHandler();
+        final RecordingProjectionService projectionService = new RecordingProjectionService(0);
+        final AsyncEventProcessor testee = new AsyncEventProcessor(projectionService, STREAM_ID, 1, handler);
+        final List<CommonEvent> events = events(2);
+        testee.process(events.get(0), 0);
+
+        // TEST
+        Thread.currentThread().interrupt();
+        assertThrows(IllegalStateException.class, () -> testee.process(events.get(1), 1));
+        assertThat(Thread.interrupted()).isTrue();
+        handler.complete(0);
+        testee.process(events.get(1), 1);
+        handler.complete(1);
+
+        // VERIFY
+        assertThat(testee.awaitCompletion(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(testee.getPosition()).isEqualTo(2L);
+
+    }
+
+    private static List<CommonEvent> events(final int count) {
+        final List<CommonEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final EventA event = new EventA();
+            events.add(new SimpleCommonEvent(new EventId(event.getEventId().asBaseType()), new TypeName(EVENT_TYPE_A.asBaseType()), event));
+        }
+        return events;
+    }
+
+    private static class ManualAsyncEventHandler implements AsyncEventHandler<EventA> {
+
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+        @Override
+        public synchronized CompletionStage<Void> handleAsync(EventA event) {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }
+
+        public void complete(int index) {
+            future(index).complete(null);
+        }
+
+        public void fail(int index) {
+            future(index).completeExceptionally(new IllegalStateException("Failed"));
+        }
+
+        private synchronized CompletableFuture<Void> future(int index) {
+            return futures.get(index);
+        }
+
+    }
+
+    private static class RecordingProjectionService implements ProjectionService {
+
+        private final long start;
+
+        private final List<Long> positions = new ArrayList<>();
+
+        public RecordingProjectionService(long start) {
+            super();
+            this.start = start;
+        }
+
+        @Override
+        public void resetProjectionPosition(StreamId streamId) {
+            positions.clear();
+        }
+
+        @Override
+        public Long readProjectionPosition(StreamId streamId) {
+            return start;
+        }
+
+        @Override
+        public synchronized void updateProjectionPosition(StreamId streamId, Long nextEventNumber) {
+            positions.add(nextEventNumber);
+        }
+
+        public synchronized List<Long> getPositions() {
+            return new ArrayList<>(positions);
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
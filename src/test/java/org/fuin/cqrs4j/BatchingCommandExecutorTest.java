@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class BatchingCommandExecutorTest {
+
+    @Test
+    public final void testCommandsForSameAggregateAreBatched() throws Exception {
+
+        // PREPARE
+        final RecordingBatchExecutor delegate = new RecordingBatchExecutor(false);
+        final BatchingCommandExecutor<String, String, MyCommand> testee = new BatchingCommandExecutor<>(delegate, 5, 200);
+        final ExecutorService pool = Executors.newFixedThreadPool(20);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<MyCommand> cmds = new ArrayList<>();
+        final List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final MyCommand cmd = command(1L);
+            cmds.add(cmd);
+            futures.add(pool.submit(() -> {
+                start.await();
+                return testee.execute("ctx", cmd);
+            }));
+        }
+
+        // TEST
+        start.countDown();
+        final List<String> results = new ArrayList<>();
+        for (final Future<String> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+
+        // VERIFY
+        for (int i = 0; i < cmds.size(); i++) {
+            assertThat(results.get(i)).isEqualTo(cmds.get(i).getEventId().toString());
+        }
+        assertThat(testee.getBatchedCommandCount()).isEqualTo(20L);
+        assertThat(testee.getBatchCount()).isLessThan(20L);
+        assertThat(delegate.getMaxBatchSize()).isLessThanOrEqualTo(5);
+        assertThat(delegate.getMaxConcurrency()).isEqualTo(1);
+
+    }
+
+    @Test
+    public final void testFailureIsPassedToAllCallers() throws Exception {
+
+        // PREPARE
+        final RecordingBatchExecutor delegate = new RecordingBatchExecutor(true);
+        final BatchingCommandExecutor<String, String, MyCommand> testee = new BatchingCommandExecutor<>(delegate, 10, 100);
+        final ExecutorService pool = Executors.newFixedThreadPool(3);
+        final List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(pool.submit(() -> testee.execute("ctx", command(2L))));
+        }
+
+        // TEST & VERIFY
+        for (final Future<String> future : futures) {
+            try {
+                future.get();
+                fail();
+            } catch (final ExecutionException ex) {
+                assertThat(ex.getCause()).isInstanceOf(AggregateVersionConflictException.class);
+            }
+        }
+        pool.shutdown();
+
+    }
+
+    private static MyCommand command(final long id) {
+        return new MyCommand(new EntityIdPath(new AId(id)), null);
+    }
+
+    private static class RecordingBatchExecutor implements BatchCommandExecutor<String, String, MyCommand> {
+
+        private final boolean failing;
+
+        private int running;
+
+        private int maxConcurrency;
+
+        private int maxBatchSize;
+
+        public RecordingBatchExecutor(boolean failing) {
+            super();
+            this.failing = failing;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(new MyCommand().getEventType());
+        }
+
+        @Override
+        public String execute(String ctx, MyCommand cmd) {
+            return cmd.getEventId().toString();
+        }
+
+        @Override
+        public List<String> executeBatch(List<String> contexts, List<MyCommand> cmds) throws AggregateVersionConflictException {
+            synchronized (this) {
+                running++;
+                maxConcurrency = Math.max(maxConcurrency, running);
+                maxBatchSize = Math.max(maxBatchSize, cmds.size());
+            }
+            try {
+                Thread.sleep(10);
+                if (failing) {
+                    throw new AggregateVersionConflictException(AId.TYPE, cmds.get(0).getAggregateRootId(), 1, 2);
+                }
+                final List<String> results = new ArrayList<>();
+                for (final MyCommand cmd : cmds) {
+                    results.add(execute(contexts.get(0), cmd));
+                }
+                return results;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } finally {
+                synchronized (this) {
+                    running--;
+                }
+            }
+        }
+
+        public synchronized int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public synchronized int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.Event;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class BulkheadEventDispatcherTest {
+
+    @Test
+    public final void testSlowHandlerDoesNotBlockFastHandler() throws InterruptedException {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> slow = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final CollectingEventHandler<EventA> fast = new CollectingEventHandler<>();
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(20, QueueFullStrategy.BLOCK, slow, fast);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new EventA());
+        }
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(fast.awaitEvents(10, 10, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.getEvents()).isEqualTo(events);
+        assertThat(slow.awaitStarted(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(slow.getEvents()).isEmpty();
+        assertThat(testee.getQueueDepths().get(slow)).isEqualTo(9);
+        assertThat(testee.getQueueDepths().get(fast)).isEqualTo(0);
+
+        release.countDown();
+        testee.close();
+        assertThat(slow.getEvents()).isEqualTo(events);
+
+    }
+
+    @Test
+    public final void testAwaitDrained() throws InterruptedException {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> slow = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(10, QueueFullStrategy.BLOCK, slow);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(new EventA());
+        }
+        testee.dispatchEvents(events);
+
+        // TEST
+        final boolean blocked = testee.awaitDrained(50, TimeUnit.MILLISECONDS);
+        release.countDown();
+        final boolean released = testee.awaitDrained(10, TimeUnit.SECONDS);
+
+        // VERIFY
+        assertThat(blocked).isFalse();
+        assertThat(released).isTrue();
+        assertThat(slow.getEvents()).isEqualTo(events);
+        testee.close();
+
+    }
+
+    @Test
+    public final void testDropOldestIfQueueIsFull() throws InterruptedException {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> slow = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(2, QueueFullStrategy.DROP_OLDEST, slow);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new EventA());
+        }
+
+        // TEST
+        testee.dispatchEvent(events.get(0));
+        assertThat(slow.awaitStarted(10, TimeUnit.SECONDS)).isTrue();
+        testee.dispatchEvents(events.subList(1, 10));
+
+        // VERIFY
+        assertThat(testee.getQueueDepths().get(slow)).isEqualTo(2);
+        assertThat(testee.getDroppedEventCounts().get(slow)).isEqualTo(7L);
+
+        release.countDown();
+        testee.close();
+        assertThat(slow.getEvents()).containsExactly(events.get(0), events.get(8), events.get(9));
+
+    }
+
+    @Test
+    public final void testFailIfQueueIsFull() {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> slow = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(1, QueueFullStrategy.FAIL, slow);
+
+        // TEST & VERIFY
+        try {
+            assertThrows(RejectedExecutionException.class, () -> {
+                for (int i = 0; i < 10; i++) {
+                    testee.dispatchEvent(new EventA());
+                }
+            });
+        } finally {
+            release.countDown();
+            testee.close();
+        }
+
+    }
+
+    @Test
+    public final void testFailQueuesForAllHandlersOrNone() throws InterruptedException {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> slow = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final CollectingEventHandler<EventA> fast = new CollectingEventHandler<>();
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(1, QueueFullStrategy.FAIL, fast, slow);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        testee.dispatchEvent(a1);
+        assertThat(slow.awaitStarted(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.awaitEvents(1, 10, TimeUnit.SECONDS)).isTrue();
+        testee.dispatchEvent(a2);
+        assertThat(fast.awaitEvents(2, 10, TimeUnit.SECONDS)).isTrue();
+
+        // TEST
+        assertThrows(RejectedExecutionException.class, () -> testee.dispatchEvent(new EventA()));
+
+        // VERIFY
+        release.countDown();
+        testee.close();
+        assertThat(slow.getEvents()).containsExactly(a1, a2);
+        assertThat(fast.getEvents()).containsExactly(a1, a2);
+
+    }
+
+    @Test
+    public final void testThreadNameOfAnonymousHandler() throws InterruptedException {
+
+        // PREPARE
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>() {
+            @Override
+            public void handle(EventA event) {
+                threadNames.add(Thread.currentThread().getName());
+                super.handle(event);
+            }
+        };
+        final BulkheadEventDispatcher testee = new BulkheadEventDispatcher(1, QueueFullStrategy.BLOCK, handler);
+
+        // TEST
+        testee.dispatchEvent(new EventA());
+        testee.close();
+
+        // VERIFY
+        assertThat(threadNames).containsExactly("BulkheadEventDispatcher-" + handler.getClass().getName() + "-1");
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.SimpleStreamId;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class CheckpointingEventProcessorTest {
+
+    private static final StreamId STREAM_ID = new SimpleStreamId("projection");
+
+    @Test
+    public final void testPositionStoredEveryNEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final RecordingProjectionService projectionService = new RecordingProjectionService();
+        final MutableClock clock = new MutableClock();
+        final CheckpointingEventProcessor testee = new CheckpointingEventProcessor(new SimpleEventDispatcher(handler), projectionService,
+                STREAM_ID, 3, 10000, clock);
+
+        // TEST
+        testee.process(new StreamEventsSlice(0, events(2), 2, false));
+        testee.process(new StreamEventsSlice(2, events(2), 4, false));
+        testee.process(new StreamEventsSlice(4, events(1), 5, true));
+
+        // VERIFY
+        assertThat(handler.getEvents()).hasSize(5);
+        assertThat(projectionService.getPositions()).containsExactly(4L);
+        assertThat(testee.getPendingEventCount()).isEqualTo(1);
+
+        testee.close();
+        assertThat(projectionService.getPositions()).containsExactly(4L, 5L);
+        testee.close();
+        assertThat(projectionService.getPositions()).containsExactly(4L, 5L);
+
+    }
+
+    @Test
+    public final void testPositionStoredAfterInterval() {
+
+        // PREPARE
+        final RecordingProjectionService projectionService = new RecordingProjectionService();
+        final MutableClock clock = new MutableClock();
+        final CheckpointingEventProcessor testee = new CheckpointingEventProcessor(
+                new SimpleEventDispatcher(new CollectingEventHandler<>()), projectionService, STREAM_ID, 100, 1000, clock);
+
+        // TEST
+        testee.process(events(1), 1);
+        clock.advance(Duration.ofMillis(999));
+        testee.process(events(1), 2);
+        clock.advance(Duration.ofMillis(1));
+        testee.process(events(1), 3);
+
+        // VERIFY
+        assertThat(projectionService.getPositions()).containsExactly(3L);
+
+    }
+
+    @Test
+    public final void testPositionNotPassedOnFailure() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final RecordingProjectionService projectionService = new RecordingProjectionService();
+        final CheckpointingEventProcessor testee = new CheckpointingEventProcessor(new SimpleEventDispatcher(handler), projectionService,
+                STREAM_ID, 100, 10000, new MutableClock());
+        testee.process(events(2), 2);
+        handler.setFailures(1);
+
+        // TEST
+        assertThrows(IllegalStateException.class, () -> testee.process(events(2), 4));
+        testee.close();
+
+        // VERIFY
+        assertThat(projectionService.getPositions()).containsExactly(2L);
+
+    }
+
+    @Test
+    public final void testFlushIfDue() {
+
+        // PREPARE
+        final RecordingProjectionService projectionService = new RecordingProjectionService();
+        final MutableClock clock = new MutableClock();
+        final CheckpointingEventProcessor testee = new CheckpointingEventProcessor(
+                new SimpleEventDispatcher(new CollectingEventHandler<>()), projectionService, STREAM_ID, 100, 1000, clock);
+        testee.process(events(1), 1);
+
+        // TEST
+        clock.advance(Duration.ofMillis(999));
+        testee.flushIfDue();
+        final List<Long> before = new ArrayList<>(projectionService.getPositions());
+        clock.advance(Duration.ofMillis(1));
+        testee.flushIfDue();
+
+        // VERIFY
+        assertThat(before).isEmpty();
+        assertThat(projectionService.getPositions()).containsExactly(1L);
+
+    }
+
+    @Test
+    public final void testWaitsForAsyncDispatcher() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final DrainableDispatcher dispatcher = new DrainableDispatcher(new SimpleEventDispatcher(handler));
+        final RecordingProjectionService projectionService = new RecordingProjectionService();
+        final CheckpointingEventProcessor testee = new CheckpointingEventProcessor(dispatcher, projectionService, STREAM_ID, 1, 10000,
+                500, new MutableClock());
+        dispatcher.drained = false;
+
+        // TEST
+        testee.process(events(1), 1);
+        final List<Long> notDrained = new ArrayList<>(projectionService.getPositions());
+        dispatcher.drained = true;
+        testee.flush();
+
+        // VERIFY
+        assertThat(notDrained).isEmpty();
+        assertThat(dispatcher.drainTimeouts).containsExactly(500L, 500L);
+        assertThat(projectionService.getPositions()).containsExactly(1L);
+
+    }
+
+    private static List<CommonEvent> events(final int count) {
+        final List<CommonEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final EventA event = new EventA();
+            events.add(new SimpleCommonEvent(new EventId(event.getEventId().asBaseType()), new TypeName(EVENT_TYPE_A.asBaseType()), event));
+        }
+        return events;
+    }
+
+    private static class RecordingProjectionService implements ProjectionService {
+
+        private final List<Long> positions = new ArrayList<>();
+
+        @Override
+        public void resetProjectionPosition(StreamId streamId) {
+            positions.clear();
+        }
+
+        @Override
+        public Long readProjectionPosition(StreamId streamId) {
+            return positions.isEmpty() ? 0L : positions.get(positions.size() - 1);
+        }
+
+        @Override
+        public void updateProjectionPosition(StreamId streamId, Long nextEventNumber) {
+            positions.add(nextEventNumber);
+        }
+
+        public List<Long> getPositions() {
+            return positions;
+        }
+
+    }
+
+    private static class DrainableDispatcher implements AsyncEventDispatcher {
+
+        private final EventDispatcher delegate;
+
+        private final List<Long> drainTimeouts = new ArrayList<>();
+
+        private boolean drained;
+
+        public DrainableDispatcher(EventDispatcher delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Set<EventType> getAllTypes() {
+            return delegate.getAllTypes();
+        }
+
+        @Override
+        public void dispatchCommonEvents(List<CommonEvent> commonEvents) {
+            delegate.dispatchCommonEvents(commonEvents);
+        }
+
+        @Override
+        public void dispatchEvents(List<Event> events) {
+            delegate.dispatchEvents(events);
+        }
+
+        @Override
+        public void dispatchEvent(Event event) {
+            delegate.dispatchEvent(event);
+        }
+
+        @Override
+        public boolean awaitDrained(long timeout, TimeUnit unit) {
+            drainTimeouts.add(unit.toMillis(timeout));
+            return drained;
+        }
+
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        public void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,273 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_B;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.fuin.cqrs4j.TestEvents.NotDeserializableCommonEvent;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class CompiledEventDispatcherTest {
+
+    @Test
+    public final void testDispatchEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new CompiledEventDispatcher(handlerA, handlerB);
+
+        final List<Event> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(a1);
+        final EventA a2 = new EventA();
+        events.add(a2);
+        final EventA a3 = new EventA();
+        events.add(a3);
+        final EventB b1 = new EventB();
+        events.add(b1);
+        final EventB b2 = new EventB();
+        events.add(b2);
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2, a3);
+        assertThat(handlerB.getEvents()).containsExactly(b1, b2);
+
+    }
+
+    @Test
+    public final void testDispatchCommonEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new CompiledEventDispatcher(handlerA, handlerB);
+
+        final List<CommonEvent> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(asCommonEvent(a1));
+        final EventA a2 = new EventA();
+        events.add(asCommonEvent(a2));
+        final EventA a3 = new EventA();
+        events.add(asCommonEvent(a3));
+        final EventB b1 = new EventB();
+        events.add(asCommonEvent(b1));
+        final EventB b2 = new EventB();
+        events.add(asCommonEvent(b2));
+
+        // TEST
+        testee.dispatchCommonEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2, a3);
+        assertThat(handlerB.getEvents()).containsExactly(b1, b2);
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsSkipsUnknownTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CompiledEventDispatcher testee = new CompiledEventDispatcher(handlerA);
+
+        final List<CommonEvent> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(asCommonEvent(a1));
+        events.add(new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_B.asBaseType())));
+        final EventA a2 = new EventA();
+        events.add(asCommonEvent(a2));
+
+        // TEST
+        testee.dispatchCommonEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2);
+        assertThat(testee.getSkippedCommonEventCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsBeforeBrokenEvent() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CompiledEventDispatcher testee = new CompiledEventDispatcher(handlerA);
+
+        final List<CommonEvent> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(asCommonEvent(a1));
+        final EventA a2 = new EventA();
+        events.add(asCommonEvent(a2));
+        events.add(new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_A.asBaseType())));
+
+        // TEST
+        assertThrows(IllegalStateException.class, () -> testee.dispatchCommonEvents(events));
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2);
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsIteratorInChunks() {
+
+        // PREPARE
+        final CollectingBatchEventHandler<EventA> handlerA = new CollectingBatchEventHandler<>(EVENT_TYPE_A);
+        final CompiledEventDispatcher testee = new CompiledEventDispatcher(handlerA);
+        final List<CommonEvent> events = new ArrayList<>();
+        for (int i = 0; i < EventDispatcher.STREAM_CHUNK_SIZE + 10; i++) {
+            events.add(asCommonEvent(new EventA()));
+        }
+
+        // TEST
+        testee.dispatchCommonEvents(events.iterator());
+
+        // VERIFY
+        assertThat(handlerA.getBatches()).hasSize(2);
+        assertThat(handlerA.getBatches().get(0)).hasSize(EventDispatcher.STREAM_CHUNK_SIZE);
+        assertThat(handlerA.getBatches().get(1)).hasSize(10);
+
+    }
+
+    @Test
+    public final void testDispatchEventsToBatchHandler() {
+
+        // PREPARE
+        final CollectingBatchEventHandler<EventA> handlerA = new CollectingBatchEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new CompiledEventDispatcher(handlerA, handlerB);
+
+        final List<Event> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(a1);
+        final EventA a2 = new EventA();
+        events.add(a2);
+        final EventB b1 = new EventB();
+        events.add(b1);
+        final EventA a3 = new EventA();
+        events.add(a3);
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getBatches()).hasSize(2);
+        assertThat(handlerA.getBatches().get(0)).containsExactly(a1, a2);
+        assertThat(handlerA.getBatches().get(1)).containsExactly(a3);
+        assertThat(handlerA.getEvents()).isEmpty();
+        assertThat(handlerB.getEvents()).containsExactly(b1);
+
+    }
+
+    @Test
+    public final void testGetAllTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new CompiledEventDispatcher(handlerA, handlerB);
+
+        final List<EventType> typeList = new ArrayList<>();
+        typeList.add(handlerA.getEventType());
+        typeList.add(handlerB.getEventType());
+
+        // TEST & VERIFY
+        assertThat(testee.getAllTypes()).hasSameElementsAs(typeList);
+
+    }
+
+    @Test
+    public final void testMultipleEventHandlersForOneEvent() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA1 = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventA> handlerA2 = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new CompiledEventDispatcher(handlerA1, handlerA2, handlerB);
+
+        final List<Event> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(a1);
+        final EventA a2 = new EventA();
+        events.add(a2);
+        final EventA a3 = new EventA();
+        events.add(a3);
+        final EventB b1 = new EventB();
+        events.add(b1);
+        final EventB b2 = new EventB();
+        events.add(b2);
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(handlerA1.getEvents()).containsExactly(a1, a2, a3);
+        assertThat(handlerA1.getEvents()).containsExactly(a1, a2, a3);
+        assertThat(handlerB.getEvents()).containsExactly(b1, b2);
+
+    }
+
+    private static CommonEvent asCommonEvent(final Event event) {
+        final EventId eventId = new EventId(event.getEventId().asBaseType());
+        final TypeName typeName = new TypeName(event.getEventType().asBaseType());
+        return new SimpleCommonEvent(eventId, typeName, event);
+    }
+
+    private static class CollectingBatchEventHandler<TYPE extends Event> extends CollectingEventHandler<TYPE>
+            implements BatchEventHandler<TYPE> {
+
+        private List<List<Event>> batches;
+
+        public CollectingBatchEventHandler(EventType type) {
+            super(type);
+            this.batches = new ArrayList<>();
+        }
+
+        @Override
+        public void handleBatch(List<TYPE> events) {
+            batches.add(new ArrayList<Event>(events));
+        }
+
+        public List<List<Event>> getBatches() {
+            return batches;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
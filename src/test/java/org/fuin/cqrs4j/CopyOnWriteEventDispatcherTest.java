@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.NotDeserializableCommonEvent;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class CopyOnWriteEventDispatcherTest {
+
+    @Test
+    public final void testRegisterAndUnregister() {
+
+        // PREPARE
+        final CopyOnWriteEventDispatcher testee = new CopyOnWriteEventDispatcher();
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        final EventA a3 = new EventA();
+
+        // TEST
+        testee.dispatchEvent(a1);
+        testee.register(handler);
+        testee.dispatchEvent(a2);
+        final boolean removed = testee.unregister(handler);
+        testee.dispatchEvent(a3);
+
+        // VERIFY
+        assertThat(removed).isTrue();
+        assertThat(testee.unregister(handler)).isFalse();
+        assertThat(handler.getEvents()).containsExactly(a2);
+        assertThat(testee.getAllTypes()).isEmpty();
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsSkipsUnknownTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final CopyOnWriteEventDispatcher testee = new CopyOnWriteEventDispatcher(handler);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        final List<CommonEvent> events = new ArrayList<>();
+        events.add(asCommonEvent(a1));
+        events.add(new NotDeserializableCommonEvent(new TypeName("Unknown")));
+        events.add(asCommonEvent(a2));
+        events.add(new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_A.asBaseType())));
+
+        // TEST
+        assertThrows(IllegalStateException.class, () -> testee.dispatchCommonEvents(events.iterator()));
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a1, a2);
+        assertThat(testee.getSkippedCommonEventCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testConcurrentRegister() throws InterruptedException {
+
+        // PREPARE
+        final CopyOnWriteEventDispatcher testee = new CopyOnWriteEventDispatcher();
+        final List<CollectingEventHandler<EventA>> handlers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            handlers.add(new CollectingEventHandler<>());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // TEST
+        for (final CollectingEventHandler<EventA> handler : handlers) {
+            executor.execute(() -> testee.register(handler));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        final EventA event = new EventA();
+        testee.dispatchEvent(event);
+
+        // VERIFY
+        assertThat(testee.getAllTypes()).containsExactly(EVENT_TYPE_A);
+        for (final CollectingEventHandler<EventA> handler : handlers) {
+            assertThat(handler.getEvents()).containsExactly(event);
+        }
+
+    }
+
+    private static CommonEvent asCommonEvent(final Event event) {
+        final EventId eventId = new EventId(event.getEventId().asBaseType());
+        final TypeName typeName = new TypeName(event.getEventType().asBaseType());
+        return new SimpleCommonEvent(eventId, typeName, event);
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,324 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class DeadLetterEventDispatcherTest {
+
+    @Test
+    public final void testPoisonEventDoesNotStallDispatch() {
+
+        // PREPARE
+        final EventA a1 = new EventA();
+        final EventA poison = new EventA();
+        final EventA a3 = new EventA();
+        final FailingEventHandler failing = new FailingEventHandler(poison, 2);
+        final FailingEventHandler healthy = new FailingEventHandler(null, 0);
+        final InMemoryDeadLetterStore store = new InMemoryDeadLetterStore();
+
+        try (final DeadLetterEventDispatcher testee = new DeadLetterEventDispatcher(store, 5, 10, 100, failing, healthy)) {
+
+            // TEST
+            testee.dispatchEvents(Arrays.asList(a1, poison, a3));
+
+            // VERIFY
+            assertThat(failing.getEvents()).containsExactly(a1, a3);
+            assertThat(healthy.getEvents()).containsExactly(a1, poison, a3);
+            assertThat(testee.getParkedCount()).isEqualTo(1L);
+            assertThat(await(() -> store.findAll().isEmpty())).isTrue();
+            assertThat(failing.getEvents()).containsExactly(a1, a3, poison);
+            assertThat(testee.getRetriedCount()).isEqualTo(2L);
+            assertThat(testee.getPermanentlyFailedCount()).isEqualTo(0L);
+
+        }
+
+    }
+
+    @Test
+    public final void testPermanentlyFailed() {
+
+        // PREPARE
+        final EventA poison = new EventA();
+        final FailingEventHandler failing = new FailingEventHandler(poison, Integer.MAX_VALUE);
+        final InMemoryDeadLetterStore store = new InMemoryDeadLetterStore();
+
+        try (final DeadLetterEventDispatcher testee = new DeadLetterEventDispatcher(store, 3, 5, 10, failing)) {
+
+            // TEST
+            testee.dispatchEvent(poison);
+
+            // VERIFY
+            assertThat(await(() -> testee.getPermanentlyFailedCount() == 1)).isTrue();
+            assertThat(testee.getRetriedCount()).isEqualTo(2L);
+            assertThat(store.findDue(Long.MAX_VALUE)).isEmpty();
+            assertThat(store.findAll()).hasSize(1);
+            final DeadLetter deadLetter = store.findAll().get(0);
+            assertThat(deadLetter.isPermanentlyFailed()).isTrue();
+            assertThat(deadLetter.getAttempts()).isEqualTo(3);
+            assertThat(deadLetter.getEvent()).isSameAs(poison);
+
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public final void testBatchHandlerKeepsBatches() {
+
+        // PREPARE
+        final EventA a1 = new EventA();
+        final EventA poison = new EventA();
+        final EventA a3 = new EventA();
+        final FailingBatchEventHandler handler = new FailingBatchEventHandler(poison, 1);
+        final InMemoryDeadLetterStore store = new InMemoryDeadLetterStore();
+        final List<EventHandler> handlers = Collections.singletonList(handler);
+
+        try (final DeadLetterEventDispatcher testee = new DeadLetterEventDispatcher(store, 5, 10, 100, handlers,
+                SimpleEventDispatcher::new)) {
+
+            // TEST
+            testee.dispatchEvents(Arrays.asList(a1, poison, a3));
+
+            // VERIFY
+            assertThat(handler.getBatchCalls()).isEqualTo(1);
+            assertThat(handler.getEvents()).containsExactly(a1, a3);
+            assertThat(testee.getParkedCount()).isEqualTo(1L);
+            assertThat(await(() -> store.findAll().isEmpty())).isTrue();
+            assertThat(handler.getEvents()).containsExactly(a1, a3, poison);
+
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public final void testBatchHandlerRetriesOnlyEventsNotApplied() {
+
+        // PREPARE
+        final EventA a1 = new EventA();
+        final EventA poison = new EventA();
+        final EventA a3 = new EventA();
+        final PartialBatchEventHandler handler = new PartialBatchEventHandler(poison, 2);
+        final InMemoryDeadLetterStore store = new InMemoryDeadLetterStore();
+        final List<EventHandler> handlers = Collections.singletonList(handler);
+
+        try (final DeadLetterEventDispatcher testee = new DeadLetterEventDispatcher(store, 5, 10, 100, handlers,
+                SimpleEventDispatcher::new)) {
+
+            // TEST
+            testee.dispatchEvents(Arrays.asList(a1, poison, a3));
+
+            // VERIFY
+            assertThat(handler.getEvents()).containsExactly(a1, a3);
+            assertThat(testee.getParkedCount()).isEqualTo(1L);
+            assertThat(await(() -> store.findAll().isEmpty())).isTrue();
+            assertThat(handler.getEvents()).containsExactly(a1, a3, poison);
+
+        }
+
+    }
+
+    @Test
+    public final void testRetryDoesNotOverlapWithDispatch() {
+
+        // PREPARE
+        final OverlapDetectingEventHandler handler = new OverlapDetectingEventHandler();
+        final InMemoryDeadLetterStore store = new InMemoryDeadLetterStore();
+
+        try (final DeadLetterEventDispatcher testee = new DeadLetterEventDispatcher(store, 5, 1, 1, handler)) {
+
+            // TEST
+            for (int i = 0; i < 200; i++) {
+                testee.dispatchEvent(new EventA());
+            }
+
+            // VERIFY
+            assertThat(await(() -> store.findAll().isEmpty())).isTrue();
+            assertThat(handler.getHandled()).isEqualTo(200);
+            assertThat(handler.isOverlapped()).isFalse();
+
+        }
+
+    }
+
+    private static boolean await(final BooleanSupplier condition) {
+        final long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class FailingBatchEventHandler extends FailingEventHandler implements BatchEventHandler {
+
+        private int batchCalls;
+
+        public FailingBatchEventHandler(Event poison, int failures) {
+            super(poison, failures);
+        }
+
+        @Override
+        public void handleBatch(List events) {
+            batchCalls++;
+            for (final Object event : events) {
+                if (event == poison) {
+                    throw new IllegalStateException("Poison in batch");
+                }
+            }
+            for (final Object event : events) {
+                handle((Event) event);
+            }
+        }
+
+        public int getBatchCalls() {
+            return batchCalls;
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class PartialBatchEventHandler extends FailingEventHandler implements BatchEventHandler {
+
+        public PartialBatchEventHandler(Event poison, int failures) {
+            super(poison, failures);
+        }
+
+        @Override
+        public void handleBatch(List events) {
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    handle((Event) events.get(i));
+                } catch (final RuntimeException ex) {
+                    throw new BatchEventHandlerException(i, ex);
+                }
+            }
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class OverlapDetectingEventHandler implements EventHandler {
+
+        private final AtomicBoolean busy = new AtomicBoolean();
+
+        private final Set<Event> failed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        private final AtomicInteger handled = new AtomicInteger();
+
+        private volatile boolean overlapped;
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+        @Override
+        public void handle(Event event) {
+            if (!busy.compareAndSet(false, true)) {
+                overlapped = true;
+                return;
+            }
+            try {
+                if (failed.add(event)) {
+                    throw new IllegalStateException("First attempt");
+                }
+                Thread.yield();
+                handled.incrementAndGet();
+            } finally {
+                busy.set(false);
+            }
+        }
+
+        public int getHandled() {
+            return handled.get();
+        }
+
+        public boolean isOverlapped() {
+            return overlapped;
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class FailingEventHandler implements EventHandler {
+
+        protected final Event poison;
+
+        private int failures;
+
+        private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+
+        public FailingEventHandler(Event poison, int failures) {
+            super();
+            this.poison = poison;
+            this.failures = failures;
+        }
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+        @Override
+        public void handle(Event event) {
+            if (event == poison && failures > 0) {
+                failures--;
+                throw new IllegalStateException("Poison");
+            }
+            events.add(event);
+        }
+
+        public List<Event> getEvents() {
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class DeadLetterTest {
+
+    @Test
+    public final void testCreate() {
+
+        // PREPARE
+        final EventA event = new EventA();
+
+        // TEST
+        final DeadLetter testee = new DeadLetter("handler#0", event, 1000, "Failed");
+
+        // VERIFY
+        assertThat(testee.getId()).isNotNull();
+        assertThat(testee.getHandlerName()).isEqualTo("handler#0");
+        assertThat(testee.getEvent()).isSameAs(event);
+        assertThat(testee.getAttempts()).isEqualTo(1);
+        assertThat(testee.getNextAttemptMillis()).isEqualTo(1000L);
+        assertThat(testee.getLastError()).isEqualTo("Failed");
+        assertThat(testee.isPermanentlyFailed()).isFalse();
+
+    }
+
+    @Test
+    public final void testRetryFailed() {
+
+        // PREPARE
+        final DeadLetter original = new DeadLetter("handler#0", new EventA(), 1000, "Failed");
+
+        // TEST
+        final DeadLetter testee = original.retryFailed(2000, "Failed again");
+
+        // VERIFY
+        assertThat(testee.getId()).isEqualTo(original.getId());
+        assertThat(testee.getAttempts()).isEqualTo(2);
+        assertThat(testee.getNextAttemptMillis()).isEqualTo(2000L);
+        assertThat(testee.getLastError()).isEqualTo("Failed again");
+        assertThat(testee.isPermanentlyFailed()).isFalse();
+        assertThat(original.getAttempts()).isEqualTo(1);
+
+    }
+
+    @Test
+    public final void testPermanentlyFailed() {
+
+        // PREPARE
+        final DeadLetter original = new DeadLetter("handler#0", new EventA(), 1000, "Failed").retryFailed(2000, "Failed again");
+
+        // TEST
+        final DeadLetter testee = original.permanentlyFailed("Gave up");
+
+        // VERIFY
+        assertThat(testee.getId()).isEqualTo(original.getId());
+        assertThat(testee.getAttempts()).isEqualTo(2);
+        assertThat(testee.getLastError()).isEqualTo("Gave up");
+        assertThat(testee.isPermanentlyFailed()).isTrue();
+
+    }
+
+}
+// CHECKSTYLE:ON
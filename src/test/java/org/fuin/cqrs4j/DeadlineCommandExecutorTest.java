@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class DeadlineCommandExecutorTest {
+
+    @Test
+    public final void testDeadlineExceededWhileExecuting() throws Exception {
+
+        // PREPARE
+        final SlowExecutor delegate = new SlowExecutor(5000);
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        final DeadlineCommandExecutor<MyContext, SimpleResult, MyCommand> testee = new DeadlineCommandExecutor<>(delegate, pool,
+                Function.identity());
+
+        // TEST
+        final long start = System.nanoTime();
+        final SimpleResult result = testee.execute(new MyContext(Deadline.after(500, TimeUnit.MILLISECONDS)), command());
+
+        // VERIFY
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000L);
+        assertThat(result.getType()).isEqualTo(ResultType.ERROR);
+        assertThat(result.getCode()).isEqualTo(Cqrs4JUtils.DEADLINE_EXCEEDED);
+        assertThat(testee.getExpiredCount()).isEqualTo(1L);
+        assertThat(delegate.interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        pool.shutdown();
+
+    }
+
+    @Test
+    public final void testExpiredCommandIsNotStarted() throws Exception {
+
+        // PREPARE
+        final SlowExecutor delegate = new SlowExecutor(0);
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        final DeadlineCommandExecutor<MyContext, SimpleResult, MyCommand> testee = new DeadlineCommandExecutor<>(delegate, pool,
+                Function.identity());
+
+        // TEST
+        final SimpleResult expired = testee.execute(new MyContext(Deadline.after(0, TimeUnit.MILLISECONDS)), command());
+        final SimpleResult withoutDeadline = testee.execute(new MyContext(null), command());
+
+        // VERIFY
+        assertThat(expired.getCode()).isEqualTo(Cqrs4JUtils.DEADLINE_EXCEEDED);
+        assertThat(withoutDeadline.getType()).isEqualTo(ResultType.OK);
+        assertThat(delegate.calls).isEqualTo(1);
+        pool.shutdown();
+
+    }
+
+    @Test
+    public final void testInterceptorShortCircuitsExpiredCommand() throws Exception {
+
+        // PREPARE
+        final SlowExecutor delegate = new SlowExecutor(0);
+        final InterceptingCommandExecutor<MyContext, SimpleResult, MyCommand> testee = new InterceptingCommandExecutor<>(delegate,
+                Collections.singletonList(new DeadlineInterceptor<>(Function.identity())));
+
+        // TEST
+        final SimpleResult expired = testee.execute(new MyContext(Deadline.after(-1, TimeUnit.SECONDS)), command());
+        final SimpleResult ok = testee.execute(new MyContext(Deadline.after(1, TimeUnit.MINUTES)), command());
+
+        // VERIFY
+        assertThat(expired.getCode()).isEqualTo(Cqrs4JUtils.DEADLINE_EXCEEDED);
+        assertThat(ok.getType()).isEqualTo(ResultType.OK);
+        assertThat(delegate.calls).isEqualTo(1);
+
+    }
+
+    @Test
+    public final void testMailboxDropsExpiredCommand() throws Exception {
+
+        // PREPARE
+        final SlowExecutor delegate = new SlowExecutor(300);
+        final AggregateMailboxCommandExecutor<MyContext, SimpleResult, MyCommand> testee = new AggregateMailboxCommandExecutor<>(delegate);
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final Future<SimpleResult> running = pool.submit(() -> testee.execute(new MyContext(null), command()));
+        delegate.started.await();
+
+        // TEST & VERIFY
+        assertThrows(DeadlineExceededException.class,
+                () -> testee.execute(new MyContext(Deadline.after(20, TimeUnit.MILLISECONDS)), command()));
+        assertThat(running.get().getType()).isEqualTo(ResultType.OK);
+        assertThat(delegate.calls).isEqualTo(1);
+        pool.shutdown();
+
+    }
+
+    @Test
+    public final void testBatchDropsExpiredCommand() throws Exception {
+
+        // PREPARE
+        final SlowExecutor delegate = new SlowExecutor(0);
+        final BatchingCommandExecutor<MyContext, SimpleResult, MyCommand> testee = new BatchingCommandExecutor<>(delegate, 10, 100);
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Future<SimpleResult> leader = pool.submit(() -> testee.execute(new MyContext(null), command()));
+        final Future<SimpleResult> expiring = pool
+                .submit(() -> testee.execute(new MyContext(Deadline.after(10, TimeUnit.MILLISECONDS)), command()));
+
+        // TEST & VERIFY
+        assertThat(leader.get().getType()).isEqualTo(ResultType.OK);
+        try {
+            expiring.get();
+            fail();
+        } catch (final ExecutionException ex) {
+            assertThat(ex.getCause()).isInstanceOf(DeadlineExceededException.class);
+        }
+        assertThat(delegate.calls).isEqualTo(1);
+        pool.shutdown();
+
+    }
+
+    private static MyCommand command() {
+        return new MyCommand(new EntityIdPath(new AId(1L)), null);
+    }
+
+    public static class MyContext implements DeadlineAware {
+
+        private final Deadline deadline;
+
+        public MyContext(Deadline deadline) {
+            super();
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Deadline getDeadline() {
+            return deadline;
+        }
+
+    }
+
+    private static class SlowExecutor implements BatchCommandExecutor<MyContext, SimpleResult, MyCommand> {
+
+        private final long sleepMillis;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private volatile int calls;
+
+        public SlowExecutor(long sleepMillis) {
+            super();
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(new MyCommand().getEventType());
+        }
+
+        @Override
+        public synchronized SimpleResult execute(MyContext ctx, MyCommand cmd) {
+            calls++;
+            started.countDown();
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (final InterruptedException ex) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            return SimpleResult.ok();
+        }
+
+        @Override
+        public List<SimpleResult> executeBatch(List<MyContext> contexts, List<MyCommand> cmds) {
+            final List<SimpleResult> results = new ArrayList<>();
+            for (int i = 0; i < cmds.size(); i++) {
+                results.add(execute(contexts.get(i), cmds.get(i)));
+            }
+            return results;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.cqrs4j.DeadlineCommandExecutorTest.MyContext;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class DeadlineInterceptorTest {
+
+    @Test
+    public final void testProceedsBeforeDeadline() throws Exception {
+
+        // PREPARE
+        final AtomicInteger calls = new AtomicInteger();
+        final DeadlineInterceptor<MyContext, SimpleResult, MyCommand> testee = new DeadlineInterceptor<>(Function.identity());
+
+        // TEST
+        final SimpleResult withDeadline = testee.intercept(new MyContext(Deadline.after(1, TimeUnit.HOURS)), command(), (ctx, cmd) -> {
+            calls.incrementAndGet();
+            return SimpleResult.ok();
+        });
+        final SimpleResult withoutDeadline = testee.intercept(new MyContext(null), command(), (ctx, cmd) -> {
+            calls.incrementAndGet();
+            return SimpleResult.ok();
+        });
+
+        // VERIFY
+        assertThat(withDeadline.getType()).isEqualTo(ResultType.OK);
+        assertThat(withoutDeadline.getType()).isEqualTo(ResultType.OK);
+        assertThat(calls.get()).isEqualTo(2);
+
+    }
+
+    @Test
+    public final void testSkipsPipelineAfterDeadline() throws Exception {
+
+        // PREPARE
+        final AtomicInteger calls = new AtomicInteger();
+        final DeadlineInterceptor<MyContext, SimpleResult, MyCommand> testee = new DeadlineInterceptor<>(Function.identity());
+
+        // TEST
+        final SimpleResult result = testee.intercept(new MyContext(Deadline.after(0, TimeUnit.MILLISECONDS)), command(), (ctx, cmd) -> {
+            calls.incrementAndGet();
+            return SimpleResult.ok();
+        });
+
+        // VERIFY
+        assertThat(result.getType()).isEqualTo(ResultType.ERROR);
+        assertThat(result.getCode()).isEqualTo(Cqrs4JUtils.DEADLINE_EXCEEDED);
+        assertThat(calls.get()).isEqualTo(0);
+
+    }
+
+    @Test
+    public final void testConvertsDeadlineExceededException() throws Exception {
+
+        // PREPARE
+        final DeadlineInterceptor<MyContext, SimpleResult, MyCommand> testee = new DeadlineInterceptor<>(Function.identity());
+
+        // TEST
+        final SimpleResult result = testee.intercept(new MyContext(Deadline.after(1, TimeUnit.HOURS)), command(), (ctx, cmd) -> {
+            throw new DeadlineExceededException("Too late");
+        });
+
+        // VERIFY
+        assertThat(result.getType()).isEqualTo(ResultType.ERROR);
+        assertThat(result.getCode()).isEqualTo(Cqrs4JUtils.DEADLINE_EXCEEDED);
+        assertThat(result.getMessage()).isEqualTo("Too late");
+
+    }
+
+    private static MyCommand command() {
+        return new MyCommand(new EntityIdPath(new AId(1L)), null);
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.DeadlineCommandExecutorTest.MyContext;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class DeadlineTest {
+
+    @Test
+    public final void testNotExpired() {
+
+        // PREPARE
+        final Deadline testee = Deadline.after(1, TimeUnit.HOURS);
+
+        // TEST & VERIFY
+        assertThat(testee.isExpired()).isFalse();
+        assertThat(testee.getRemaining(TimeUnit.MINUTES)).isBetween(58L, 60L);
+        testee.check();
+
+    }
+
+    @Test
+    public final void testExpired() {
+
+        // PREPARE
+        final Deadline testee = Deadline.after(-10, TimeUnit.MILLISECONDS);
+
+        // TEST & VERIFY
+        assertThat(testee.isExpired()).isTrue();
+        assertThat(testee.getRemaining(TimeUnit.NANOSECONDS)).isEqualTo(0L);
+        final DeadlineExceededException ex = assertThrows(DeadlineExceededException.class, () -> testee.check());
+        assertThat(ex.getMessage()).startsWith("Deadline exceeded by ");
+
+    }
+
+    @Test
+    public final void testOf() {
+
+        // PREPARE
+        final Deadline deadline = Deadline.after(1, TimeUnit.SECONDS);
+
+        // TEST & VERIFY
+        assertThat(Deadline.of(new MyContext(deadline))).isSameAs(deadline);
+        assertThat(Deadline.of(new MyContext(null))).isNull();
+        assertThat(Deadline.of("ctx")).isNull();
+        assertThat(Deadline.of(null)).isNull();
+
+    }
+
+    @Test
+    public final void testToString() {
+
+        // TEST & VERIFY
+        assertThat(Deadline.after(-1, TimeUnit.SECONDS).toString()).isEqualTo("Deadline [remainingMillis=0]");
+
+    }
+
+}
+// CHECKSTYLE:ON
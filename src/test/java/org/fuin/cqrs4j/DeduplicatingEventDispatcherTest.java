@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class DeduplicatingEventDispatcherTest {
+
+    @Test
+    public final void testDispatchEventsDropsDuplicates() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final DeduplicatingEventDispatcher testee = new DeduplicatingEventDispatcher(new SimpleEventDispatcher(handler), 10);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        final EventA a3 = new EventA();
+
+        // TEST
+        testee.dispatchEvents(Arrays.asList(a1, a2, a1));
+        testee.dispatchEvent(a2);
+        testee.dispatchCommonEvents(Arrays.asList(asCommonEvent(a2), asCommonEvent(a3)));
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a1, a2, a3);
+        assertThat(testee.getHitCount()).isEqualTo(3L);
+        assertThat(testee.getMissCount()).isEqualTo(3L);
+
+    }
+
+    @Test
+    public final void testOldestIdIsEvicted() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final DeduplicatingEventDispatcher testee = new DeduplicatingEventDispatcher(new SimpleEventDispatcher(handler), 2);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        final EventA a3 = new EventA();
+
+        // TEST
+        testee.dispatchEvent(a1);
+        testee.dispatchEvent(a2);
+        testee.dispatchEvent(a3);
+        testee.dispatchEvent(a3);
+        testee.dispatchEvent(a1);
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a1, a2, a3, a1);
+        assertThat(testee.getHitCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testFailedEventsCanBeRedelivered() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        handler.setFailures(1);
+        final DeduplicatingEventDispatcher testee = new DeduplicatingEventDispatcher(new SimpleEventDispatcher(handler), 10);
+        final EventA a1 = new EventA();
+
+        // TEST
+        assertThrows(IllegalStateException.class, () -> testee.dispatchEvents(Arrays.asList(a1)));
+        testee.dispatchEvents(Arrays.asList(a1));
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a1);
+        assertThat(testee.getHitCount()).isEqualTo(0L);
+
+    }
+
+    private static CommonEvent asCommonEvent(final Event event) {
+        final EventId eventId = new EventId(event.getEventId().asBaseType());
+        final TypeName typeName = new TypeName(event.getEventType().asBaseType());
+        return new SimpleCommonEvent(eventId, typeName, event);
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.ddd4j.ddd.AbstractEvent;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the dispatch performance of {@link SimpleEventDispatcher} and {@link CompiledEventDispatcher}. Run it with the
+ * {@link #main(String[])} method from the test classpath. No results are recorded here, as they depend on the hardware and the JVM, so
+ * measure on the target system before choosing a dispatcher for its speed.
+ */
+// CHECKSTYLE:OFF
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDispatcherBenchmark {
+
+    private static final int TYPE_COUNT = 16;
+
+    private static final int EVENT_COUNT = 1024;
+
+    private Event[] events;
+
+    private SimpleEventDispatcher simpleDispatcher;
+
+    private CompiledEventDispatcher compiledDispatcher;
+
+    private CountingEventHandler[] handlers;
+
+    @Setup
+    @SuppressWarnings("rawtypes")
+    public void setup() {
+        final EventType[] types = new EventType[TYPE_COUNT];
+        final List<EventHandler> handlerList = new ArrayList<>();
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            types[i] = new EventType("BenchmarkEvent" + i);
+            handlerList.add(new CountingEventHandler(types[i]));
+            handlerList.add(new CountingEventHandler(types[i]));
+        }
+        handlers = handlerList.toArray(new CountingEventHandler[handlerList.size()]);
+        simpleDispatcher = new SimpleEventDispatcher(handlerList);
+        compiledDispatcher = new CompiledEventDispatcher(handlerList);
+        events = new Event[EVENT_COUNT];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            // New instance per event like after deserialization
+            events[i] = new BenchmarkEvent(new EventType(types[i % TYPE_COUNT].asBaseType()));
+        }
+    }
+
+    @Benchmark
+    public void simpleDispatchEvent(final Blackhole blackhole) {
+        for (final Event event : events) {
+            simpleDispatcher.dispatchEvent(event);
+        }
+        blackhole.consume(handlers[0].count);
+    }
+
+    @Benchmark
+    public void compiledDispatchEvent(final Blackhole blackhole) {
+        for (final Event event : events) {
+            compiledDispatcher.dispatchEvent(event);
+        }
+        blackhole.consume(handlers[0].count);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventDispatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static final class BenchmarkEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = 1L;
+
+        private final EventType eventType;
+
+        public BenchmarkEvent(final EventType eventType) {
+            super();
+            this.eventType = eventType;
+        }
+
+        @Override
+        public EventType getEventType() {
+            return eventType;
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class CountingEventHandler implements EventHandler {
+
+        private final EventType eventType;
+
+        private long count;
+
+        public CountingEventHandler(final EventType eventType) {
+            super();
+            this.eventType = eventType;
+        }
+
+        @Override
+        public EventType getEventType() {
+            return eventType;
+        }
+
+        @Override
+        public void handle(final Event event) {
+            count++;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
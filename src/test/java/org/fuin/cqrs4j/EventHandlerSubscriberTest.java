@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class EventHandlerSubscriberTest {
+
+    @Test
+    public final void testRequestsWindowAndReplenishes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final RecordingSubscription subscription = new RecordingSubscription();
+        final EventHandlerSubscriber<EventA> testee = new EventHandlerSubscriber<>(handler, 4);
+
+        // TEST
+        testee.onSubscribe(subscription);
+        testee.onNext(new EventA());
+        testee.onNext(new EventA());
+        testee.onNext(new EventA());
+
+        // VERIFY
+        assertThat(subscription.getRequests()).containsExactly(4L, 2L);
+        assertThat(handler.getEvents()).hasSize(3);
+        assertThat(testee.getHandler()).isSameAs(handler);
+
+    }
+
+    @Test
+    public final void testIgnoresOtherTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final RecordingSubscription subscription = new RecordingSubscription();
+        final EventHandlerSubscriber<EventA> testee = new EventHandlerSubscriber<>(handler, 1);
+        final EventA a = new EventA();
+
+        // TEST
+        testee.onSubscribe(subscription);
+        testee.onNext(new EventB());
+        testee.onNext(a);
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a);
+        assertThat(subscription.getRequests()).containsExactly(1L, 1L, 1L);
+
+    }
+
+    @Test
+    public final void testHandlerFailureDoesNotStopSubscription() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        handler.setFailures(1);
+        final RecordingSubscription subscription = new RecordingSubscription();
+        final EventHandlerSubscriber<EventA> testee = new EventHandlerSubscriber<>(handler, 2);
+        final EventA a = new EventA();
+
+        // TEST
+        testee.onSubscribe(subscription);
+        testee.onNext(new EventA());
+        testee.onNext(a);
+
+        // VERIFY
+        assertThat(handler.getEvents()).containsExactly(a);
+        assertThat(subscription.getRequests()).containsExactly(2L, 1L, 1L);
+
+    }
+
+    @Test
+    public final void testAwaitCompletion() throws InterruptedException {
+
+        // PREPARE
+        final EventHandlerSubscriber<EventA> completed = new EventHandlerSubscriber<>(new CollectingEventHandler<>(), 1);
+        final EventHandlerSubscriber<EventA> failed = new EventHandlerSubscriber<>(new CollectingEventHandler<>(), 1);
+        final EventHandlerSubscriber<EventA> running = new EventHandlerSubscriber<>(new CollectingEventHandler<>(), 1);
+
+        // TEST
+        completed.onComplete();
+        failed.onError(new IllegalStateException("Publisher failed"));
+
+        // VERIFY
+        assertThat(completed.awaitCompletion(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(failed.awaitCompletion(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(running.awaitCompletion(10, TimeUnit.MILLISECONDS)).isFalse();
+
+    }
+
+    @Test
+    public final void testInvalidWindow() {
+
+        assertThrows(IllegalArgumentException.class, () -> new EventHandlerSubscriber<>(new CollectingEventHandler<>(), 0));
+
+    }
+
+    private static class RecordingSubscription implements Flow.Subscription {
+
+        private final List<Long> requests = new ArrayList<>();
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        public List<Long> getRequests() {
+            return requests;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
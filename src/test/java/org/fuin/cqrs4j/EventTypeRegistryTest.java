@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class EventTypeRegistryTest {
+
+    private static final EventType TYPE_A = new EventType("A");
+
+    private static final EventType TYPE_B = new EventType("B");
+
+    private static final EventType TYPE_C = new EventType("C");
+
+    @Test
+    public final void testIndexesFollowSortedNames() {
+
+        // PREPARE
+        final EventTypeRegistry testee = new EventTypeRegistry(Arrays.asList(TYPE_C, TYPE_A, TYPE_B, TYPE_A));
+
+        // TEST & VERIFY
+        assertThat(testee.size()).isEqualTo(3);
+        assertThat(testee.indexOf(TYPE_A)).isEqualTo(0);
+        assertThat(testee.indexOf(TYPE_B)).isEqualTo(1);
+        assertThat(testee.indexOf(TYPE_C)).isEqualTo(2);
+        assertThat(testee.typeOf(2)).isSameAs(TYPE_C);
+        assertThat(testee.getTypes()).containsExactly(TYPE_A, TYPE_B, TYPE_C);
+
+    }
+
+    @Test
+    public final void testLookupByEqualInstanceAndName() {
+
+        // PREPARE
+        final EventTypeRegistry testee = new EventTypeRegistry(Arrays.asList(TYPE_A, TYPE_B));
+
+        // TEST & VERIFY
+        assertThat(testee.indexOf(new EventType("B"))).isEqualTo(1);
+        assertThat(testee.indexOf("A")).isEqualTo(0);
+        assertThat(testee.indexOf(TYPE_C)).isEqualTo(EventTypeRegistry.UNKNOWN);
+        assertThat(testee.indexOf("C")).isEqualTo(EventTypeRegistry.UNKNOWN);
+        assertThrows(IllegalArgumentException.class, () -> testee.typeOf(2));
+
+    }
+
+}
+// CHECKSTYLE:ON
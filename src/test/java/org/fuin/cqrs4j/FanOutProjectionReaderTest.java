@@ -0,0 +1,285 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.EventStoreBasics;
+import org.fuin.esc.api.ReadableEventStore;
+import org.fuin.esc.api.SimpleStreamId;
+import org.fuin.esc.api.StreamEventsSlice;
+import org.fuin.esc.api.StreamId;
+import org.fuin.esc.api.StreamState;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class FanOutProjectionReaderTest {
+
+    private static final StreamId STREAM_ID = new SimpleStreamId("source");
+
+    @Test
+    public final void testSharedReadDeserializesOnce() {
+
+        // PREPARE
+        final ListEventStore store = new ListEventStore(5);
+        final CollectingEventHandler<EventA> handler1 = new CollectingEventHandler<>();
+        final CollectingEventHandler<EventA> handler2 = new CollectingEventHandler<>();
+        final MemoryProjectionService service1 = new MemoryProjectionService(0);
+        final MemoryProjectionService service2 = new MemoryProjectionService(0);
+        final FanOutProjectionReader testee = new FanOutProjectionReader(store, STREAM_ID, 10);
+        testee.addProjection(new SimpleEventDispatcher(handler1), service1);
+        testee.addProjection(new SimpleEventDispatcher(handler2), service2);
+
+        // TEST
+        final boolean advanced = testee.readNext();
+
+        // VERIFY
+        assertThat(advanced).isTrue();
+        assertThat(store.getReads()).containsExactly(0L);
+        assertThat(handler1.getEvents()).hasSize(5);
+        assertThat(handler2.getEvents()).isEqualTo(handler1.getEvents());
+        assertThat(store.getDeserializations()).isEqualTo(5);
+        assertThat(service1.readProjectionPosition(STREAM_ID)).isEqualTo(5L);
+        assertThat(service2.readProjectionPosition(STREAM_ID)).isEqualTo(5L);
+        assertThat(testee.readNext()).isFalse();
+
+    }
+
+    @Test
+    public final void testLaggingProjectionCatchesUp() {
+
+        // PREPARE
+        final ListEventStore store = new ListEventStore(6);
+        final CollectingEventHandler<EventA> leader = new CollectingEventHandler<>();
+        final CollectingEventHandler<EventA> lagger = new CollectingEventHandler<>();
+        final MemoryProjectionService leaderService = new MemoryProjectionService(4);
+        final MemoryProjectionService laggerService = new MemoryProjectionService(0);
+        final FanOutProjectionReader testee = new FanOutProjectionReader(store, STREAM_ID, 2);
+        testee.addProjection(new SimpleEventDispatcher(leader), leaderService);
+        testee.addProjection(new SimpleEventDispatcher(lagger), laggerService);
+
+        // TEST
+        while (testee.readNext()) {
+            // Read until all projections are at the end
+        }
+
+        // VERIFY
+        assertThat(store.getReads()).containsExactly(4L, 0L, 2L, 4L, 6L);
+        assertThat(leader.getEvents()).hasSize(2);
+        assertThat(lagger.getEvents()).hasSize(6);
+        assertThat(leaderService.readProjectionPosition(STREAM_ID)).isEqualTo(6L);
+        assertThat(laggerService.readProjectionPosition(STREAM_ID)).isEqualTo(6L);
+
+    }
+
+    @Test
+    public final void testLaggingProjectionCatchesUpWithinOneCall() {
+
+        // PREPARE
+        final ListEventStore store = new ListEventStore(7);
+        final CollectingEventHandler<EventA> leader = new CollectingEventHandler<>();
+        final CollectingEventHandler<EventA> lagger = new CollectingEventHandler<>();
+        final MemoryProjectionService leaderService = new MemoryProjectionService(5);
+        final MemoryProjectionService laggerService = new MemoryProjectionService(0);
+        final FanOutProjectionReader testee = new FanOutProjectionReader(store, STREAM_ID, 3);
+        testee.addProjection(new SimpleEventDispatcher(lagger), laggerService);
+        testee.addProjection(new SimpleEventDispatcher(leader), leaderService);
+
+        // TEST
+        final boolean advanced = testee.readNext();
+
+        // VERIFY
+        assertThat(advanced).isTrue();
+        assertThat(store.getReads()).containsExactly(5L, 0L, 3L, 6L);
+        assertThat(leaderService.readProjectionPosition(STREAM_ID)).isEqualTo(7L);
+        assertThat(laggerService.readProjectionPosition(STREAM_ID)).isEqualTo(7L);
+        assertThat(lagger.getEvents()).hasSize(7);
+
+    }
+
+    @Test
+    public final void testFailingProjectionDoesNotBlockOthers() {
+
+        // PREPARE
+        final ListEventStore store = new ListEventStore(3);
+        final CollectingEventHandler<EventA> healthy = new CollectingEventHandler<>();
+        final CollectingEventHandler<EventA> failing = new CollectingEventHandler<>();
+        failing.setFailures(1);
+        final MemoryProjectionService healthyService = new MemoryProjectionService(0);
+        final MemoryProjectionService failingService = new MemoryProjectionService(0);
+        final FanOutProjectionReader testee = new FanOutProjectionReader(store, STREAM_ID, 10);
+        testee.addProjection(new SimpleEventDispatcher(failing), failingService);
+        testee.addProjection(new SimpleEventDispatcher(healthy), healthyService);
+
+        // TEST
+        testee.readNext();
+
+        // VERIFY
+        assertThat(healthyService.readProjectionPosition(STREAM_ID)).isEqualTo(3L);
+        assertThat(failingService.readProjectionPosition(STREAM_ID)).isEqualTo(0L);
+        assertThat(testee.readNext()).isTrue();
+        assertThat(failingService.readProjectionPosition(STREAM_ID)).isEqualTo(3L);
+        assertThat(failing.getEvents()).hasSize(3);
+
+    }
+
+    private static class MemoryProjectionService implements ProjectionService {
+
+        private long position;
+
+        public MemoryProjectionService(long position) {
+            super();
+            this.position = position;
+        }
+
+        @Override
+        public void resetProjectionPosition(StreamId streamId) {
+            position = 0;
+        }
+
+        @Override
+        public Long readProjectionPosition(StreamId streamId) {
+            return position;
+        }
+
+        @Override
+        public void updateProjectionPosition(StreamId streamId, Long nextEventNumber) {
+            position = nextEventNumber;
+        }
+
+    }
+
+    private static class ListEventStore implements ReadableEventStore {
+
+        private final List<CommonEvent> events = new ArrayList<>();
+
+        private final List<Long> reads = new ArrayList<>();
+
+        private final AtomicInteger deserializations = new AtomicInteger();
+
+        public ListEventStore(int count) {
+            super();
+            for (int i = 0; i < count; i++) {
+                events.add(new CountingCommonEvent(new EventA(), deserializations));
+            }
+        }
+
+        public List<Long> getReads() {
+            return reads;
+        }
+
+        public int getDeserializations() {
+            return deserializations.get();
+        }
+
+        @Override
+        public StreamEventsSlice readEventsForward(StreamId streamId, long start, int count) {
+            reads.add(start);
+            final int from = (int) Math.min(start, events.size());
+            final int to = Math.min(from + count, events.size());
+            return new StreamEventsSlice(start, new ArrayList<>(events.subList(from, to)), to, to == events.size());
+        }
+
+        @Override
+        public StreamEventsSlice readEventsBackward(StreamId streamId, long start, int count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommonEvent readEvent(StreamId streamId, long eventNumber) {
+            return events.get((int) eventNumber);
+        }
+
+        @Override
+        public boolean streamExists(StreamId streamId) {
+            return true;
+        }
+
+        @Override
+        public StreamState streamState(StreamId streamId) {
+            return StreamState.ACTIVE;
+        }
+
+        @Override
+        public void readAllEventsForward(StreamId streamId, long startingAtEventNumber, int chunkSize, ChunkEventHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public EventStoreBasics open() {
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    private static class CountingCommonEvent implements CommonEvent {
+
+        private final EventA event;
+
+        private final AtomicInteger counter;
+
+        public CountingCommonEvent(EventA event, AtomicInteger counter) {
+            super();
+            this.event = event;
+            this.counter = counter;
+        }
+
+        @Override
+        public EventId getId() {
+            return new EventId(event.getEventId().asBaseType());
+        }
+
+        @Override
+        public TypeName getDataType() {
+            return new TypeName(EVENT_TYPE_A.asBaseType());
+        }
+
+        @Override
+        public Object getData() {
+            counter.incrementAndGet();
+            return event;
+        }
+
+        @Override
+        public TypeName getMetaType() {
+            return null;
+        }
+
+        @Override
+        public Object getMeta() {
+            return null;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
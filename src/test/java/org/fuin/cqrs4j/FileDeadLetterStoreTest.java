@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class FileDeadLetterStoreTest {
+
+    private static final String EVENTS = "org.fuin.cqrs4j.TestEvents$EventA";
+
+    @Test
+    public final void testStoreFindRemove() throws IOException {
+
+        // PREPARE
+        final Path dir = Files.createTempDirectory("dead-letters");
+        final FileDeadLetterStore testee = new FileDeadLetterStore(dir, EVENTS);
+        final EventA event = new EventA();
+        final DeadLetter first = new DeadLetter("handler#0", event, 1000, "Failed");
+        final DeadLetter later = new DeadLetter("handler#0", new EventA(), 2000, "Failed");
+
+        // TEST
+        testee.store(later);
+        testee.store(first);
+        testee.store(first.retryFailed(1500, "Failed again"));
+
+        // VERIFY
+        final FileDeadLetterStore reopened = new FileDeadLetterStore(dir, EVENTS);
+        assertThat(reopened.findAll()).hasSize(2);
+        assertThat(reopened.findDue(999)).isEmpty();
+        assertThat(reopened.findDue(1500)).hasSize(1);
+        final DeadLetter found = reopened.findDue(1500).get(0);
+        assertThat(found.getId()).isEqualTo(first.getId());
+        assertThat(found.getAttempts()).isEqualTo(2);
+        assertThat(found.getLastError()).isEqualTo("Failed again");
+        assertThat(found.getEvent().getEventId()).isEqualTo(event.getEventId());
+        assertThat(reopened.findDue(2000).get(1).getId()).isEqualTo(later.getId());
+
+        reopened.remove(first.getId());
+        reopened.remove(later.getId());
+        assertThat(testee.findAll()).isEmpty();
+        Files.delete(dir);
+
+    }
+
+    @Test
+    public final void testUnreadableFilesAreQuarantined() throws IOException {
+
+        // PREPARE
+        final Path dir = Files.createTempDirectory("dead-letters");
+        final FileDeadLetterStore writer = new FileDeadLetterStore(dir, EVENTS);
+        final DeadLetter allowed = new DeadLetter("handler#0", new EventA(), 1000, "Failed");
+        final DeadLetter notAllowed = new DeadLetter("handler#0", new EventB(), 1000, "Failed");
+        writer.store(allowed);
+        writer.store(notAllowed);
+        final Path garbage = dir.resolve(UUID.randomUUID() + ".ser");
+        Files.write(garbage, new byte[] { 1, 2, 3 });
+
+        // TEST
+        final FileDeadLetterStore testee = new FileDeadLetterStore(dir, EVENTS);
+
+        // VERIFY
+        assertThat(testee.findDue(1000)).hasSize(1);
+        assertThat(testee.findDue(1000).get(0).getId()).isEqualTo(allowed.getId());
+        assertThat(Files.exists(garbage)).isFalse();
+        assertThat(Files.exists(dir.resolve(garbage.getFileName() + FileDeadLetterStore.CORRUPT_EXTENSION))).isTrue();
+        assertThat(Files.exists(dir.resolve(notAllowed.getId() + ".ser" + FileDeadLetterStore.CORRUPT_EXTENSION))).isTrue();
+
+    }
+
+    @Test
+    public final void testPermanentlyFailedNotRead() throws IOException {
+
+        // PREPARE
+        final Path dir = Files.createTempDirectory("dead-letters");
+        final FileDeadLetterStore testee = new FileDeadLetterStore(dir, EVENTS);
+        final DeadLetter failed = new DeadLetter("handler#0", new EventA(), 1000, "Failed").permanentlyFailed("Gave up");
+        testee.store(failed);
+
+        // TEST
+        Files.write(dir.resolve(failed.getId() + ".ser"), new byte[] { 1, 2, 3 });
+
+        // VERIFY
+        assertThat(testee.findDue(Long.MAX_VALUE)).isEmpty();
+        assertThat(Files.exists(dir.resolve(failed.getId() + ".ser"))).isTrue();
+
+    }
+
+}
+// CHECKSTYLE:ON
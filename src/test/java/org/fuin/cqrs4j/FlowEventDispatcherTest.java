@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_B;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.fuin.ddd4j.ddd.Event;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class FlowEventDispatcherTest {
+
+    @Test
+    public final void testDispatchEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A, null);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B, null);
+        final FlowEventDispatcher testee = new FlowEventDispatcher(4, 2, handlerA, handlerB);
+        final List<Event> events = new ArrayList<>();
+        final List<Event> expectedA = new ArrayList<>();
+        final List<Event> expectedB = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final Event event = (i % 2 == 0) ? new EventA() : new EventB();
+            events.add(event);
+            if (i % 2 == 0) {
+                expectedA.add(event);
+            } else {
+                expectedB.add(event);
+            }
+        }
+
+        // TEST
+        testee.dispatchEvents(events);
+        testee.close();
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).isEqualTo(expectedA);
+        assertThat(handlerB.getEvents()).isEqualTo(expectedB);
+
+    }
+
+    @Test
+    public final void testAwaitDrained() {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B, null);
+        final FlowEventDispatcher testee = new FlowEventDispatcher(8, 4, handlerA, handlerB);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(new EventA());
+        }
+        testee.dispatchEvents(events);
+
+        // TEST
+        final boolean blocked = testee.awaitDrained(50, TimeUnit.MILLISECONDS);
+        release.countDown();
+        final boolean released = testee.awaitDrained(10, TimeUnit.SECONDS);
+
+        // VERIFY
+        assertThat(blocked).isFalse();
+        assertThat(released).isTrue();
+        assertThat(handlerA.getEvents()).isEqualTo(events);
+        testee.close();
+
+    }
+
+    @Test
+    public final void testOfferEventWithFullBuffer() {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final FlowEventDispatcher testee = new FlowEventDispatcher(1, 1, handlerA);
+
+        // TEST
+        boolean accepted = true;
+        int offered = 0;
+        while (accepted && offered < 100) {
+            accepted = testee.offerEvent(new EventA(), 10, TimeUnit.MILLISECONDS);
+            offered++;
+        }
+        release.countDown();
+        testee.close();
+
+        // VERIFY
+        assertThat(accepted).isFalse();
+        assertThat(handlerA.getEvents()).hasSize(offered - 1);
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.cqrs4j.DeadlineCommandExecutorTest.MyContext;
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class IdempotentCommandExecutorTest {
+
+    @Test
+    public final void testResubmittedCommandReturnsStoredResult() throws Exception {
+
+        // PREPARE
+        final CountingExecutor<String> delegate = new CountingExecutor<>(null, false);
+        final IdempotentCommandExecutor<String, String, MyCommand> testee = new IdempotentCommandExecutor<>(delegate,
+                new InMemoryCommandResultStore<>(100, 60000));
+        final MyCommand cmd = command(1L);
+
+        // TEST
+        final String first = testee.execute("ctx", cmd);
+        final String second = testee.execute("ctx", cmd);
+
+        // VERIFY
+        assertThat(second).isEqualTo(first);
+        assertThat(delegate.getCalls()).isEqualTo(1);
+        assertThat(testee.getReplayedCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testConcurrentDuplicatesWaitForFirstExecution() throws Exception {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingExecutor<String> delegate = new CountingExecutor<>(release, false);
+        final IdempotentCommandExecutor<String, String, MyCommand> testee = new IdempotentCommandExecutor<>(delegate,
+                new InMemoryCommandResultStore<>(100, 60000));
+        final MyCommand cmd = command(2L);
+        final ExecutorService pool = Executors.newFixedThreadPool(5);
+        final List<Future<String>> futures = new ArrayList<>();
+
+        // TEST
+        for (int i = 0; i < 5; i++) {
+            futures.add(pool.submit(() -> testee.execute("ctx", cmd)));
+        }
+        while (testee.getJoinedCount() < 4) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        final List<String> results = new ArrayList<>();
+        for (final Future<String> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+
+        // VERIFY
+        assertThat(delegate.getCalls()).isEqualTo(1);
+        assertThat(results).containsOnly(cmd.getEventId().toString());
+
+    }
+
+    @Test
+    public final void testJoinedDuplicateWaitsOnlyUntilDeadline() throws Exception {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingExecutor<MyContext> delegate = new CountingExecutor<>(release, false);
+        final IdempotentCommandExecutor<MyContext, String, MyCommand> testee = new IdempotentCommandExecutor<>(delegate,
+                new InMemoryCommandResultStore<>(100, 60000));
+        final MyCommand cmd = command(4L);
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final Future<String> first = pool.submit(() -> testee.execute(new MyContext(null), cmd));
+        assertThat(delegate.awaitStarted(10, TimeUnit.SECONDS)).isTrue();
+
+        // TEST
+        final long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class,
+                () -> testee.execute(new MyContext(Deadline.after(50, TimeUnit.MILLISECONDS)), cmd));
+
+        // VERIFY
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000L);
+        assertThat(testee.getJoinedCount()).isEqualTo(1L);
+        release.countDown();
+        assertThat(first.get()).isEqualTo(cmd.getEventId().toString());
+        assertThat(delegate.getCalls()).isEqualTo(1);
+        pool.shutdown();
+
+    }
+
+    @Test
+    public final void testFailedExecutionIsNotStored() throws Exception {
+
+        // PREPARE
+        final CountingExecutor<String> delegate = new CountingExecutor<>(null, true);
+        final IdempotentCommandExecutor<String, String, MyCommand> testee = new IdempotentCommandExecutor<>(delegate,
+                new InMemoryCommandResultStore<>(100, 60000));
+        final MyCommand cmd = command(3L);
+
+        // TEST
+        assertThrows(AggregateAlreadyExistsException.class, () -> testee.execute("ctx", cmd));
+        assertThrows(AggregateAlreadyExistsException.class, () -> testee.execute("ctx", cmd));
+
+        // VERIFY
+        assertThat(delegate.getCalls()).isEqualTo(2);
+        assertThat(testee.getReplayedCount()).isEqualTo(0L);
+
+    }
+
+    @Test
+    public final void testStoreFailureReturnsResult() throws Exception {
+
+        // PREPARE
+        final CountingExecutor<String> delegate = new CountingExecutor<>(null, false);
+        final IdempotentCommandExecutor<String, String, MyCommand> testee = new IdempotentCommandExecutor<>(delegate,
+                new FailingResultStore());
+        final MyCommand cmd = command(5L);
+
+        // TEST
+        final String result = testee.execute("ctx", cmd);
+
+        // VERIFY
+        assertThat(result).isEqualTo(cmd.getEventId().toString());
+        assertThat(delegate.getCalls()).isEqualTo(1);
+
+    }
+
+    private static MyCommand command(final long id) {
+        return new MyCommand(new EntityIdPath(new AId(id)), null);
+    }
+
+    private static class CountingExecutor<CTX> implements CommandExecutor<CTX, String, MyCommand> {
+
+        private final CountDownLatch release;
+
+        private final boolean failing;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        public CountingExecutor(CountDownLatch release, boolean failing) {
+            super();
+            this.release = release;
+            this.failing = failing;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(new MyCommand().getEventType());
+        }
+
+        @Override
+        public String execute(CTX ctx, MyCommand cmd) throws AggregateAlreadyExistsException {
+            calls.incrementAndGet();
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failing) {
+                throw new AggregateAlreadyExistsException(AId.TYPE, cmd.getAggregateRootId(), 1);
+            }
+            return cmd.getEventId().toString();
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+
+        public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException {
+            return started.await(timeout, unit);
+        }
+
+    }
+
+    private static class FailingResultStore implements CommandResultStore<String> {
+
+        @Override
+        public String find(UUID commandId) {
+            return null;
+        }
+
+        @Override
+        public void store(UUID commandId, String result) {
+            throw new IllegalStateException("Store not available");
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
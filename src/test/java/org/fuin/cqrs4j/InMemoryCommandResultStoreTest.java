@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class InMemoryCommandResultStoreTest {
+
+    @Test
+    public final void testFindStoredResult() {
+
+        // PREPARE
+        final InMemoryCommandResultStore<String> testee = new InMemoryCommandResultStore<>(10, 60000);
+        final UUID id = UUID.randomUUID();
+
+        // TEST
+        testee.store(id, "A");
+
+        // VERIFY
+        assertThat(testee.find(id)).isEqualTo("A");
+        assertThat(testee.find(UUID.randomUUID())).isNull();
+        assertThat(testee.size()).isEqualTo(1);
+
+    }
+
+    @Test
+    public final void testEvictsOldAndExpiredResults() {
+
+        // PREPARE
+        final MutableClock clock = new MutableClock();
+        final InMemoryCommandResultStore<String> testee = new InMemoryCommandResultStore<>(2, 1000, clock);
+        final UUID id1 = UUID.randomUUID();
+        final UUID id2 = UUID.randomUUID();
+        final UUID id3 = UUID.randomUUID();
+
+        // TEST
+        testee.store(id1, "1");
+        clock.advance(Duration.ofMillis(500));
+        testee.store(id2, "2");
+        testee.store(id3, "3");
+
+        // VERIFY
+        assertThat(testee.find(id1)).isNull();
+        assertThat(testee.find(id2)).isEqualTo("2");
+        clock.advance(Duration.ofMillis(1000));
+        assertThat(testee.find(id3)).isNull();
+        assertThat(testee.size()).isEqualTo(0);
+
+    }
+
+    @Test
+    public final void testReplacedResultMovesToEnd() {
+
+        // PREPARE
+        final InMemoryCommandResultStore<String> testee = new InMemoryCommandResultStore<>(2, 60000);
+        final UUID id1 = UUID.randomUUID();
+        final UUID id2 = UUID.randomUUID();
+        final UUID id3 = UUID.randomUUID();
+        testee.store(id1, "1");
+        testee.store(id2, "2");
+
+        // TEST
+        testee.store(id1, "1b");
+        testee.store(id3, "3");
+
+        // VERIFY
+        assertThat(testee.find(id1)).isEqualTo("1b");
+        assertThat(testee.find(id2)).isNull();
+        assertThat(testee.find(id3)).isEqualTo("3");
+
+    }
+
+    @Test
+    public final void testInvalidArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryCommandResultStore<String>(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryCommandResultStore<String>(1, 0));
+
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        public void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
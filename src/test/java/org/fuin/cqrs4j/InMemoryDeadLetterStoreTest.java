@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class InMemoryDeadLetterStoreTest {
+
+    @Test
+    public final void testStoreFindRemove() {
+
+        // PREPARE
+        final InMemoryDeadLetterStore testee = new InMemoryDeadLetterStore();
+        final DeadLetter later = new DeadLetter("handler#0", new EventA(), 2000, "Failed");
+        final DeadLetter first = new DeadLetter("handler#0", new EventA(), 1000, "Failed");
+        final DeadLetter failed = new DeadLetter("handler#0", new EventA(), 500, "Failed").permanentlyFailed("Gave up");
+
+        // TEST
+        testee.store(later);
+        testee.store(first);
+        testee.store(failed);
+        testee.store(first.retryFailed(1500, "Failed again"));
+
+        // VERIFY
+        assertThat(testee.findAll()).hasSize(3);
+        assertThat(testee.findDue(999)).isEmpty();
+        assertThat(testee.findDue(1500)).hasSize(1);
+        assertThat(testee.findDue(1500).get(0).getAttempts()).isEqualTo(2);
+        assertThat(testee.findDue(2000)).hasSize(2);
+        assertThat(testee.findDue(2000).get(1).getId()).isEqualTo(later.getId());
+
+        testee.remove(first.getId());
+        assertThat(testee.findDue(2000)).hasSize(1);
+        assertThat(testee.findAll()).hasSize(2);
+
+    }
+
+}
+// CHECKSTYLE:ON
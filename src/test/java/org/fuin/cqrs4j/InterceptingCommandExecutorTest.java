@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.ddd4j.ddd.AggregateAlreadyExistsException;
+import org.fuin.ddd4j.ddd.AggregateDeletedException;
+import org.fuin.ddd4j.ddd.AggregateNotFoundException;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.AggregateVersionNotFoundException;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class InterceptingCommandExecutorTest {
+
+    private static final EventType TYPE = new MyCommand().getEventType();
+
+    private static final EventType OTHER_TYPE = new EventType("OtherCommand");
+
+    @Test
+    public final void testInterceptorsAreCalledInOrder() throws Exception {
+
+        // PREPARE
+        final List<String> calls = new ArrayList<>();
+        final InterceptingCommandExecutor<String, String, MyCommand> testee = new InterceptingCommandExecutor<>(
+                new RecordingExecutor(calls),
+                Arrays.asList(new RecordingInterceptor("a", calls, null), new RecordingInterceptor("b", calls, null)));
+
+        // TEST
+        final String result = testee.execute("ctx", command());
+
+        // VERIFY
+        assertThat(result).isEqualTo("executed");
+        assertThat(calls).containsExactly("a-before", "b-before", "executor", "b-after", "a-after");
+
+    }
+
+    @Test
+    public final void testShortCircuit() throws Exception {
+
+        // PREPARE
+        final List<String> calls = new ArrayList<>();
+        final InterceptingCommandExecutor<String, String, MyCommand> testee = new InterceptingCommandExecutor<>(
+                new RecordingExecutor(calls),
+                Arrays.asList(new RecordingInterceptor("a", calls, null), new ShortCircuitInterceptor(),
+                        new RecordingInterceptor("b", calls, null)));
+
+        // TEST
+        final String result = testee.execute("ctx", command());
+
+        // VERIFY
+        assertThat(result).isEqualTo("denied");
+        assertThat(calls).containsExactly("a-before", "a-after");
+
+    }
+
+    @Test
+    public final void testInterceptorOnlyForSelectedType() throws Exception {
+
+        // PREPARE
+        final List<String> calls = new ArrayList<>();
+        final InterceptingCommandExecutor<String, String, MyCommand> testee = new InterceptingCommandExecutor<>(
+                new RecordingExecutor(calls),
+                Arrays.asList(new RecordingInterceptor("a", calls, null), new RecordingInterceptor("b", calls, OTHER_TYPE)));
+
+        // TEST
+        testee.execute("ctx", command());
+
+        // VERIFY
+        assertThat(calls).containsExactly("a-before", "executor", "a-after");
+
+    }
+
+    @Test
+    public final void testUnknownTypeIsIntercepted() throws Exception {
+
+        // PREPARE
+        final List<String> calls = new ArrayList<>();
+        final RecordingExecutor executor = new RecordingExecutor(calls) {
+            @Override
+            public Set<EventType> getCommandTypes() {
+                return new HashSet<>(Arrays.asList(OTHER_TYPE));
+            }
+        };
+        final InterceptingCommandExecutor<String, String, MyCommand> testee = new InterceptingCommandExecutor<>(executor,
+                Arrays.asList(new RecordingInterceptor("a", calls, null), new RecordingInterceptor("b", calls, OTHER_TYPE),
+                        new ShortCircuitInterceptor()));
+
+        // TEST
+        final String result = testee.execute("ctx", command());
+
+        // VERIFY
+        assertThat(result).isEqualTo("denied");
+        assertThat(calls).containsExactly("a-before", "a-after");
+
+    }
+
+    private static MyCommand command() {
+        return new MyCommand(new EntityIdPath(new AId(1L)), null);
+    }
+
+    private static class RecordingExecutor implements CommandExecutor<String, String, MyCommand> {
+
+        private final List<String> calls;
+
+        public RecordingExecutor(List<String> calls) {
+            super();
+            this.calls = calls;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return new HashSet<>(Arrays.asList(TYPE, OTHER_TYPE));
+        }
+
+        @Override
+        public String execute(String ctx, MyCommand cmd) {
+            calls.add("executor");
+            return "executed";
+        }
+
+    }
+
+    private static class RecordingInterceptor implements CommandInterceptor<String, String, MyCommand> {
+
+        private final String name;
+
+        private final List<String> calls;
+
+        private final EventType onlyType;
+
+        public RecordingInterceptor(String name, List<String> calls, EventType onlyType) {
+            super();
+            this.name = name;
+            this.calls = calls;
+            this.onlyType = onlyType;
+        }
+
+        @Override
+        public boolean appliesTo(EventType commandType) {
+            return onlyType == null || onlyType.equals(commandType);
+        }
+
+        @Override
+        public String intercept(String ctx, MyCommand cmd, CommandInterceptorChain<String, String, MyCommand> chain)
+                throws AggregateVersionConflictException, AggregateNotFoundException, AggregateVersionNotFoundException,
+                AggregateDeletedException, AggregateAlreadyExistsException, CommandExecutionFailedException {
+            calls.add(name + "-before");
+            try {
+                return chain.proceed(ctx, cmd);
+            } finally {
+                calls.add(name + "-after");
+            }
+        }
+
+    }
+
+    private static class ShortCircuitInterceptor implements CommandInterceptor<String, String, MyCommand> {
+
+        @Override
+        public String intercept(String ctx, MyCommand cmd, CommandInterceptorChain<String, String, MyCommand> chain) {
+            return "denied";
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.fuin.cqrs4j.MultiCommandExecutorTest.MyCommand;
+import org.fuin.cqrs4j.MultiCommandExecutorTest.MyContext;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.objects4j.common.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MultiAsyncCommandExecutor}.
+ */
+public class MultiAsyncCommandExecutorTest {
+
+    private static final EventType MY_COMMAND = new MyCommand().getEventType();
+
+    @Test
+    public final void testDispatchAdaptedSyncExecutor() throws Exception {
+
+        // PREPARE
+        final ExecutorService executor = AsyncCommandExecutorAdapter.newPerCommandExecutor();
+        final Thread caller = Thread.currentThread();
+        final CommandExecutor<MyContext, Thread, MyCommand> sync = new CommandExecutor<MyContext, Thread, MyCommand>() {
+            @Override
+            public final Set<EventType> getCommandTypes() {
+                return Collections.singleton(MY_COMMAND);
+            }
+
+            @Override
+            public final Thread execute(final MyContext ctx, final MyCommand cmd) {
+                return Thread.currentThread();
+            }
+        };
+        final MultiAsyncCommandExecutor<MyContext, Thread> testee = new MultiAsyncCommandExecutor<>(
+                new AsyncCommandExecutorAdapter<>(sync, executor));
+
+        try {
+
+            // TEST
+            final CompletableFuture<Thread> future = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+            // VERIFY
+            assertThat(future.get()).isNotSameAs(caller);
+            assertThat(testee.getCommandTypes()).containsExactly(MY_COMMAND);
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public final void testFailureCompletesFutureExceptionally() throws Exception {
+
+        // PREPARE
+        final CommandExecutor<MyContext, Void, MyCommand> sync = new CommandExecutor<MyContext, Void, MyCommand>() {
+            @Override
+            public final Set<EventType> getCommandTypes() {
+                return Collections.singleton(MY_COMMAND);
+            }
+
+            @Override
+            public final Void execute(final MyContext ctx, final MyCommand cmd) throws CommandExecutionFailedException {
+                throw new CommandExecutionFailedException(new IOException("Store not available"));
+            }
+        };
+        final MultiAsyncCommandExecutor<MyContext, Void> testee = new MultiAsyncCommandExecutor<>(
+                new AsyncCommandExecutorAdapter<>(sync, Runnable::run));
+
+        // TEST
+        final CompletableFuture<Void> future = testee.executeAsync(new MyContext(InetAddress.getLocalHost()), new MyCommand());
+
+        // VERIFY
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get());
+        assertThat(ex.getCause()).isInstanceOf(CommandExecutionFailedException.class);
+
+    }
+
+    @Test
+    public final void testCreateEmptyArray() {
+
+        try {
+            new MultiAsyncCommandExecutor<MyContext, Long>(new AsyncCommandExecutor[] {});
+            fail();
+        } catch (final ConstraintViolationException ex) {
+            assertThat(ex.getMessage()).isEqualTo("The argument 'cmdExecutors' cannot be an empty list");
+        }
+
+    }
+
+}
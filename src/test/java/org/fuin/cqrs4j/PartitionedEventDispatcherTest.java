@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_B;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.fuin.cqrs4j.TestEvents.NotDeserializableCommonEvent;
+import org.fuin.ddd4j.ddd.AbstractDomainEvent;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class PartitionedEventDispatcherTest {
+
+    @Test
+    public final void testDispatchEventsKeepsOrderPerAggregate() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final List<Event> events = new ArrayList<>();
+        final List<List<Event>> perAggregate = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            perAggregate.add(new ArrayList<>());
+        }
+        for (int i = 0; i < 1000; i++) {
+            final int aggregate = i % 10;
+            final EventA event = new EventA(new AId(aggregate));
+            events.add(event);
+            perAggregate.get(aggregate).add(event);
+        }
+        final EventB unkeyed = new EventB();
+        events.add(unkeyed);
+
+        try (final PartitionedEventDispatcher testee = new PartitionedEventDispatcher(new SimpleEventDispatcher(handlerA, handlerB), 4)) {
+
+            // TEST
+            testee.dispatchEvents(events);
+
+            // VERIFY
+            assertThat(handlerA.getEvents()).hasSize(1000);
+            assertThat(handlerB.getEvents()).containsExactly(unkeyed);
+            for (int i = 0; i < 10; i++) {
+                assertThat(eventsOf(handlerA.getEvents(), i)).isEqualTo(perAggregate.get(i));
+            }
+
+        }
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsSkipsUnknownTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final EventA event = new EventA(new AId(1));
+        final List<CommonEvent> commonEvents = new ArrayList<>();
+        commonEvents.add(new NotDeserializableCommonEvent(new TypeName("Unknown")));
+        commonEvents.add(new SimpleCommonEvent(new EventId(), new TypeName(EVENT_TYPE_A.asBaseType()), event));
+
+        try (final PartitionedEventDispatcher testee = new PartitionedEventDispatcher(new SimpleEventDispatcher(handlerA), 2)) {
+
+            // TEST
+            testee.dispatchCommonEvents(commonEvents);
+
+            // VERIFY
+            assertThat(handlerA.getEvents()).containsExactly(event);
+
+        }
+
+    }
+
+    @Test
+    public final void testDispatchEventRethrowsFailure() {
+
+        // PREPARE
+        final EventHandler<EventA> failing = new EventHandler<EventA>() {
+            @Override
+            public EventType getEventType() {
+                return EVENT_TYPE_A;
+            }
+
+            @Override
+            public void handle(final EventA event) {
+                throw new IllegalStateException("Failed: " + event.getEventId());
+            }
+        };
+        final EventA event = new EventA(new AId(1));
+
+        try (final PartitionedEventDispatcher testee = new PartitionedEventDispatcher(new SimpleEventDispatcher(failing), 2)) {
+
+            // TEST & VERIFY
+            final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> testee.dispatchEvent(event));
+            assertThat(ex.getMessage()).isEqualTo("Failed: " + event.getEventId());
+
+        }
+
+    }
+
+    @Test
+    public final void testPartitionOf() {
+
+        assertThat(PartitionedEventDispatcher.partitionOf(new EventA(new AId(1)), 3))
+                .isEqualTo(PartitionedEventDispatcher.partitionOf(new EventA(new AId(1)), 3));
+        assertThat(PartitionedEventDispatcher.partitionOf(new EventA(new AId(1)), 3)).isLessThan(3);
+        assertThat(PartitionedEventDispatcher.partitionOf(new EventB(), 3)).isEqualTo(3);
+
+    }
+
+    private static List<Event> eventsOf(final List<Event> events, final long aggregate) {
+        final List<Event> result = new ArrayList<>();
+        for (final Event event : events) {
+            if (((EventA) event).getEntityId().asString().equals("" + aggregate)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static class EventA extends AbstractDomainEvent<AId> {
+
+        private static final long serialVersionUID = 1L;
+
+        public EventA(final AId id) {
+            super(new EntityIdPath(id));
+        }
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
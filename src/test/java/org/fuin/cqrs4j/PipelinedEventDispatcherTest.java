@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_B;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.SimpleCommonEvent;
+import org.fuin.esc.api.TypeName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+//CHECKSTYLE:OFF
+@Timeout(30)
+public final class PipelinedEventDispatcherTest {
+
+    @Test
+    public final void testDispatchCommonEventsInOrder() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final List<CommonEvent> commonEvents = new ArrayList<>();
+        final List<Event> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final EventA event = new EventA();
+            expected.add(event);
+            commonEvents.add(new SlowCommonEvent(event, threads));
+            if (i % 10 == 0) {
+                commonEvents.add(new SimpleCommonEvent(new EventId(), new TypeName(EVENT_TYPE_B.asBaseType()), new EventA()));
+            }
+        }
+
+        try (final PipelinedEventDispatcher testee = new PipelinedEventDispatcher(new SimpleEventDispatcher(handler), 4, 16)) {
+
+            // TEST
+            testee.dispatchCommonEvents(commonEvents);
+
+        }
+
+        // VERIFY
+        assertThat(handler.getEvents()).isEqualTo(expected);
+        assertThat(handler.getThreads()).containsExactly(Thread.currentThread().getName());
+        assertThat(threads.size()).isGreaterThan(1);
+
+    }
+
+    @Test
+    public final void testDeserializationFailure() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handler = new CollectingEventHandler<>();
+        final List<CommonEvent> commonEvents = new ArrayList<>();
+        commonEvents.add(new SlowCommonEvent(new EventA(), ConcurrentHashMap.newKeySet()));
+        commonEvents.add(new SlowCommonEvent(null, ConcurrentHashMap.newKeySet()));
+
+        try (final PipelinedEventDispatcher testee = new PipelinedEventDispatcher(new SimpleEventDispatcher(handler), 2, 8)) {
+
+            // TEST & VERIFY
+            final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> testee.dispatchCommonEvents(commonEvents));
+            assertThat(ex.getMessage()).isEqualTo("Cannot deserialize");
+            assertThat(handler.getEvents()).isEmpty();
+
+        }
+
+    }
+
+    private static class SlowCommonEvent implements CommonEvent {
+
+        private final Event event;
+
+        private final Set<String> threads;
+
+        public SlowCommonEvent(Event event, Set<String> threads) {
+            super();
+            this.event = event;
+            this.threads = threads;
+        }
+
+        @Override
+        public EventId getId() {
+            return new EventId();
+        }
+
+        @Override
+        public TypeName getDataType() {
+            return new TypeName(EVENT_TYPE_A.asBaseType());
+        }
+
+        @Override
+        public Object getData() {
+            threads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(1);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (event == null) {
+                throw new IllegalStateException("Cannot deserialize");
+            }
+            return event;
+        }
+
+        @Override
+        public TypeName getMetaType() {
+            return null;
+        }
+
+        @Override
+        public Object getMeta() {
+            return null;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
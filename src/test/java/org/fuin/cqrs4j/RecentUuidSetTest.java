@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class RecentUuidSetTest {
+
+    @Test
+    public final void testAddAndContains() {
+
+        // PREPARE
+        final RecentUuidSet testee = new RecentUuidSet(3);
+        final UUID id = UUID.randomUUID();
+
+        // TEST & VERIFY
+        assertThat(testee.contains(id)).isFalse();
+        assertThat(testee.add(id)).isTrue();
+        assertThat(testee.add(id)).isFalse();
+        assertThat(testee.contains(id)).isTrue();
+        testee.remove(id);
+        assertThat(testee.contains(id)).isFalse();
+
+    }
+
+    @Test
+    public final void testEvictionMatchesInsertionOrder() {
+
+        // PREPARE
+        final int capacity = 50;
+        final RecentUuidSet testee = new RecentUuidSet(capacity);
+        final Set<UUID> expected = new LinkedHashSet<>();
+        final List<UUID> pool = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pool.add(UUID.randomUUID());
+        }
+        final Random random = new Random(4711);
+
+        // TEST & VERIFY
+        for (int i = 0; i < 20000; i++) {
+            final UUID id = pool.get(random.nextInt(pool.size()));
+            final boolean added = !expected.contains(id);
+            if (added) {
+                if (expected.size() == capacity) {
+                    expected.remove(expected.iterator().next());
+                }
+                expected.add(id);
+            }
+            assertThat(testee.add(id)).isEqualTo(added);
+        }
+        for (final UUID id : pool) {
+            assertThat(testee.contains(id)).isEqualTo(expected.contains(id));
+        }
+
+    }
+
+    @Test
+    public final void testRemoveDoesNotEvictEarly() {
+
+        // PREPARE
+        final RecentUuidSet testee = new RecentUuidSet(3);
+        final UUID a = UUID.randomUUID();
+        final UUID b = UUID.randomUUID();
+        final UUID c = UUID.randomUUID();
+        final UUID d = UUID.randomUUID();
+        testee.add(a);
+        testee.add(b);
+        testee.add(c);
+
+        // TEST
+        testee.remove(a);
+        testee.add(a);
+        testee.remove(b);
+        testee.add(d);
+
+        // VERIFY
+        assertThat(testee.size()).isEqualTo(3);
+        assertThat(testee.contains(a)).isTrue();
+        assertThat(testee.contains(b)).isFalse();
+        assertThat(testee.contains(c)).isTrue();
+        assertThat(testee.contains(d)).isTrue();
+
+    }
+
+    @Test
+    public final void testEvictionWithRemovesMatchesInsertionOrder() {
+
+        // PREPARE
+        final int capacity = 50;
+        final RecentUuidSet testee = new RecentUuidSet(capacity);
+        final Set<UUID> expected = new LinkedHashSet<>();
+        final List<UUID> pool = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pool.add(UUID.randomUUID());
+        }
+        final Random random = new Random(4712);
+
+        // TEST & VERIFY
+        for (int i = 0; i < 50000; i++) {
+            final UUID id = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                testee.remove(id);
+            } else {
+                final boolean added = !expected.contains(id);
+                if (added) {
+                    if (expected.size() == capacity) {
+                        expected.remove(expected.iterator().next());
+                    }
+                    expected.add(id);
+                }
+                assertThat(testee.add(id)).isEqualTo(added);
+            }
+            assertThat(testee.size()).isEqualTo(expected.size());
+        }
+        for (final UUID id : pool) {
+            assertThat(testee.contains(id)).isEqualTo(expected.contains(id));
+        }
+
+    }
+
+    @Test
+    public final void testCompactionWithWrappedRingMatchesReferenceModel() {
+
+        for (int capacity = 1; capacity <= 8; capacity++) {
+            for (long seed = 0; seed < 20; seed++) {
+
+                // PREPARE
+                final RecentUuidSet testee = new RecentUuidSet(capacity);
+                final Set<UUID> expected = new LinkedHashSet<>();
+                final List<UUID> pool = new ArrayList<>();
+                for (int i = 0; i < capacity * 3; i++) {
+                    pool.add(UUID.randomUUID());
+                }
+                final Random random = new Random(seed);
+
+                // TEST & VERIFY
+                for (int i = 0; i < 2000; i++) {
+                    final UUID id = pool.get(random.nextInt(pool.size()));
+                    if (random.nextInt(4) == 0) {
+                        expected.remove(id);
+                        testee.remove(id);
+                    } else {
+                        final boolean added = !expected.contains(id);
+                        if (added) {
+                            if (expected.size() == capacity) {
+                                expected.remove(expected.iterator().next());
+                            }
+                            expected.add(id);
+                        }
+                        assertThat(testee.add(id)).isEqualTo(added);
+                    }
+                    assertThat(testee.size()).isEqualTo(expected.size());
+                    for (final UUID known : pool) {
+                        assertThat(testee.contains(known)).isEqualTo(expected.contains(known));
+                    }
+                }
+
+            }
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
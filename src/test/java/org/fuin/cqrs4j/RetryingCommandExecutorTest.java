@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.cqrs4j.AbstractAggregateCommandTest.MyCommand;
+import org.fuin.cqrs4j.DeadlineCommandExecutorTest.MyContext;
+import org.fuin.ddd4j.ddd.AggregateVersion;
+import org.fuin.ddd4j.ddd.AggregateVersionConflictException;
+import org.fuin.ddd4j.ddd.EntityIdPath;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class RetryingCommandExecutorTest {
+
+    private static final EventType COMMAND_TYPE = new MyCommand().getEventType();
+
+    @Test
+    public final void testRetriesUnversionedCommand() throws Exception {
+
+        // PREPARE
+        final ConflictingExecutor<String> delegate = new ConflictingExecutor<>(2);
+        final RetryingCommandExecutor<String, String, MyCommand> testee = new RetryingCommandExecutor<>(delegate, 5, 1, 10, 10000);
+
+        // TEST
+        final String result = testee.execute("ctx", command(null));
+
+        // VERIFY
+        assertThat(result).isEqualTo("OK");
+        assertThat(delegate.getCalls()).isEqualTo(3);
+        assertThat(testee.getRetryCounts()).containsEntry(COMMAND_TYPE, 2L);
+
+    }
+
+    @Test
+    public final void testDoesNotRetryVersionedCommand() {
+
+        // PREPARE
+        final ConflictingExecutor<String> delegate = new ConflictingExecutor<>(1);
+        final RetryingCommandExecutor<String, String, MyCommand> testee = new RetryingCommandExecutor<>(delegate, 5, 1, 10, 10000);
+
+        // TEST & VERIFY
+        assertThrows(AggregateVersionConflictException.class, () -> testee.execute("ctx", command(new AggregateVersion(1))));
+        assertThat(delegate.getCalls()).isEqualTo(1);
+        assertThat(testee.getRetryCounts()).isEmpty();
+
+    }
+
+    @Test
+    public final void testGivesUpAfterMaxAttempts() {
+
+        // PREPARE
+        final ConflictingExecutor<String> delegate = new ConflictingExecutor<>(Integer.MAX_VALUE);
+        final RetryingCommandExecutor<String, String, MyCommand> testee = new RetryingCommandExecutor<>(delegate, 3, 1, 10, 10000);
+
+        // TEST & VERIFY
+        assertThrows(AggregateVersionConflictException.class, () -> testee.execute("ctx", command(null)));
+        assertThat(delegate.getCalls()).isEqualTo(3);
+        assertThat(testee.getRetryCounts()).containsEntry(COMMAND_TYPE, 2L);
+
+    }
+
+    @Test
+    public final void testGivesUpAfterDeadline() {
+
+        // PREPARE
+        final ConflictingExecutor<String> delegate = new ConflictingExecutor<>(Integer.MAX_VALUE);
+        final RetryingCommandExecutor<String, String, MyCommand> testee = new RetryingCommandExecutor<>(delegate, 1000, 5, 5, 0);
+
+        // TEST & VERIFY
+        assertThrows(AggregateVersionConflictException.class, () -> testee.execute("ctx", command(null)));
+        assertThat(delegate.getCalls()).isLessThan(1000);
+
+    }
+
+    @Test
+    public final void testDoesNotWaitBeyondCommandDeadline() {
+
+        // PREPARE
+        final ConflictingExecutor<MyContext> delegate = new ConflictingExecutor<>(Integer.MAX_VALUE);
+        final RetryingCommandExecutor<MyContext, String, MyCommand> testee = new RetryingCommandExecutor<>(delegate, 1000, 5000, 5000,
+                60000);
+        final MyContext ctx = new MyContext(Deadline.after(10, TimeUnit.MILLISECONDS));
+
+        // TEST
+        final long start = System.nanoTime();
+        final DeadlineExceededException ex = assertThrows(DeadlineExceededException.class, () -> testee.execute(ctx, command(null)));
+
+        // VERIFY
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000L);
+        assertThat(ex.getCause()).isInstanceOf(AggregateVersionConflictException.class);
+
+    }
+
+    private static MyCommand command(final AggregateVersion version) {
+        return new MyCommand(new EntityIdPath(new AId(1L)), version);
+    }
+
+    private static class ConflictingExecutor<CTX> implements CommandExecutor<CTX, String, MyCommand> {
+
+        private final int conflicts;
+
+        private int calls;
+
+        public ConflictingExecutor(int conflicts) {
+            super();
+            this.conflicts = conflicts;
+        }
+
+        @Override
+        public Set<EventType> getCommandTypes() {
+            return Collections.singleton(COMMAND_TYPE);
+        }
+
+        @Override
+        public String execute(CTX ctx, MyCommand cmd) throws AggregateVersionConflictException {
+            calls++;
+            if (calls <= conflicts) {
+                throw new AggregateVersionConflictException(AId.TYPE, cmd.getAggregateRootId(), 1, 2);
+            }
+            return "OK";
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
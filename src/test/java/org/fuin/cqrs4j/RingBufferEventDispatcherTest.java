@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_A;
+import static org.fuin.cqrs4j.TestEvents.EVENT_TYPE_B;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.fuin.cqrs4j.TestEvents.CollectingEventHandler;
+import org.fuin.cqrs4j.TestEvents.EventA;
+import org.fuin.cqrs4j.TestEvents.EventB;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.junit.jupiter.api.Test;
+
+//CHECKSTYLE:OFF
+public final class RingBufferEventDispatcherTest {
+
+    @Test
+    public final void testDispatchEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingBatchEventHandler<EventB> handlerB = new CollectingBatchEventHandler<>(EVENT_TYPE_B);
+        final List<Event> events = new ArrayList<>();
+        final List<Event> expectedA = new ArrayList<>();
+        final List<Event> expectedB = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            if (i % 3 == 0) {
+                final EventB event = new EventB();
+                events.add(event);
+                expectedB.add(event);
+            } else {
+                final EventA event = new EventA();
+                events.add(event);
+                expectedA.add(event);
+            }
+        }
+
+        try (final RingBufferEventDispatcher testee = new RingBufferEventDispatcher(16, WaitStrategy.YIELD, handlerA, handlerB)) {
+
+            // TEST
+            testee.dispatchEvents(events);
+
+            // VERIFY
+            assertThat(testee.awaitDrained(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(testee.getBacklog()).isEqualTo(0L);
+            assertThat(handlerA.getEvents()).isEqualTo(expectedA);
+            assertThat(handlerB.getEvents()).isEqualTo(expectedB);
+
+        }
+
+    }
+
+    @Test
+    public final void testCloseProcessesPublishedEvents() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final RingBufferEventDispatcher testee = new RingBufferEventDispatcher(4, WaitStrategy.PARK, handlerA);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+
+        // TEST
+        testee.dispatchEvent(a1);
+        testee.dispatchEvent(a2);
+        testee.close();
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2);
+        assertThrows(IllegalStateException.class, () -> testee.dispatchEvent(new EventA()));
+
+    }
+
+    @Test
+    public final void testExceptionInHandlerDoesNotStopWorker() {
+
+        // PREPARE
+        final AtomicBoolean failed = new AtomicBoolean();
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A) {
+            @Override
+            public void handle(EventA event) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("Handler failed");
+                }
+                super.handle(event);
+            }
+        };
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new EventA());
+        }
+
+        try (final RingBufferEventDispatcher testee = new RingBufferEventDispatcher(4, WaitStrategy.YIELD, handlerA)) {
+
+            // TEST
+            testee.dispatchEvents(events);
+
+            // VERIFY
+            assertThat(testee.awaitDrained(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(handlerA.getEvents()).isEqualTo(events.subList(1, 10));
+
+        }
+
+    }
+
+    @Test
+    public final void testErrorInHandlerStopsWorker() {
+
+        // PREPARE
+        final AssertionError error = new AssertionError("Handler broken");
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A) {
+            @Override
+            public void handle(EventA event) {
+                throw error;
+            }
+        };
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new EventA());
+        }
+
+        try (final RingBufferEventDispatcher testee = new RingBufferEventDispatcher(4, WaitStrategy.YIELD, handlerA)) {
+
+            // TEST
+            final IllegalStateException ex = assertThrows(IllegalStateException.class, () -> testee.dispatchEvents(events));
+
+            // VERIFY
+            assertThat(ex.getCause()).isSameAs(error);
+            assertThat(testee.awaitDrained(10, TimeUnit.SECONDS)).isFalse();
+
+        }
+
+    }
+
+    @Test
+    public final void testCloseWhileProducerWaitsForFullBuffer() throws Exception {
+
+        // PREPARE
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A, release);
+        final RingBufferEventDispatcher testee = new RingBufferEventDispatcher(2, WaitStrategy.PARK, handlerA);
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new EventA());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> producer = executor.submit(() -> testee.dispatchEvents(events));
+            assertThat(handlerA.awaitStarted(10, TimeUnit.SECONDS)).isTrue();
+
+            // TEST
+            final Future<?> closer = executor.submit(testee::close);
+
+            // VERIFY
+            final ExecutionException ex = assertThrows(ExecutionException.class, () -> producer.get(10, TimeUnit.SECONDS));
+            assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class);
+            release.countDown();
+            closer.get(10, TimeUnit.SECONDS);
+            assertThat(handlerA.getEvents()).isEqualTo(events.subList(0, 2));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public final void testInvalidBufferSize() {
+
+        final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> new RingBufferEventDispatcher(3, WaitStrategy.BUSY_SPIN, new CollectingEventHandler<>(EVENT_TYPE_A)));
+        assertThat(ex.getMessage()).isEqualTo("The argument 'bufferSize' must be a power of two, but was: 3");
+
+    }
+
+    private static class CollectingBatchEventHandler<TYPE extends Event> extends CollectingEventHandler<TYPE>
+            implements BatchEventHandler<TYPE> {
+
+        public CollectingBatchEventHandler(EventType type) {
+            super(type);
+        }
+
+        @Override
+        public void handleBatch(List<TYPE> events) {
+            for (final TYPE event : events) {
+                handle(event);
+            }
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON
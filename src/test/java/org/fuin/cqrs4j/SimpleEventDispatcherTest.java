@@ -18,10 +18,14 @@
 package org.fuin.cqrs4j;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.fuin.cqrs4j.TestEvents.NotDeserializableCommonEvent;
 import org.fuin.ddd4j.ddd.AbstractEvent;
 import org.fuin.ddd4j.ddd.Event;
 import org.fuin.ddd4j.ddd.EventType;
@@ -96,6 +100,102 @@ public final class SimpleEventDispatcherTest {
 
     }
 
+    @Test
+    public final void testDispatchCommonEventsSkipsUnknownTypes() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final SimpleEventDispatcher testee = new SimpleEventDispatcher(handlerA);
+
+        final List<CommonEvent> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(asCommonEvent(a1));
+        events.add(new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_B.asBaseType())));
+        final EventA a2 = new EventA();
+        events.add(asCommonEvent(a2));
+
+        // TEST
+        testee.dispatchCommonEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2);
+        assertThat(testee.getSkippedCommonEventCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testDispatchCommonEventsStream() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final SimpleEventDispatcher testee = new SimpleEventDispatcher(handlerA);
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+
+        // TEST
+        testee.dispatchCommonEvents(Stream.of(asCommonEvent(a1), new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_B.asBaseType())),
+                asCommonEvent(a2)));
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1, a2);
+        assertThat(testee.getSkippedCommonEventCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public final void testDispatchEventsIterator() {
+
+        // PREPARE
+        final CollectingBatchEventHandler<EventA> handlerA = new CollectingBatchEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new SimpleEventDispatcher(handlerA, handlerB);
+        final EventA a1 = new EventA();
+        final EventB b1 = new EventB();
+        final List<Event> events = new ArrayList<>();
+        events.add(a1);
+        events.add(b1);
+
+        // TEST
+        testee.dispatchEvents(events.iterator());
+
+        // VERIFY
+        assertThat(handlerA.getBatches()).hasSize(1);
+        assertThat(handlerA.getBatches().get(0)).containsExactly(a1);
+        assertThat(handlerA.getEvents()).isEmpty();
+        assertThat(handlerB.getEvents()).containsExactly(b1);
+
+    }
+
+    @Test
+    public final void testDispatchEventsToBatchHandler() {
+
+        // PREPARE
+        final CollectingBatchEventHandler<EventA> handlerA = new CollectingBatchEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new SimpleEventDispatcher(handlerA, handlerB);
+
+        final List<Event> events = new ArrayList<>();
+        final EventA a1 = new EventA();
+        events.add(a1);
+        final EventA a2 = new EventA();
+        events.add(a2);
+        final EventB b1 = new EventB();
+        events.add(b1);
+        final EventA a3 = new EventA();
+        events.add(a3);
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(handlerA.getBatches()).hasSize(2);
+        assertThat(handlerA.getBatches().get(0)).containsExactly(a1, a2);
+        assertThat(handlerA.getBatches().get(1)).containsExactly(a3);
+        assertThat(handlerA.getEvents()).isEmpty();
+        assertThat(handlerB.getEvents()).containsExactly(b1);
+
+    }
+
     @Test
     public final void testGetAllTypes() {
 
@@ -144,6 +244,53 @@ public final class SimpleEventDispatcherTest {
 
     }
 
+    @Test
+    public final void testHandlersCalledInEventOrder() {
+
+        // PREPARE
+        final List<String> calls = new ArrayList<>();
+        final EventDispatcher testee = new SimpleEventDispatcher(new RecordingEventHandler("h1", calls),
+                new RecordingEventHandler("h2", calls));
+        final EventA a1 = new EventA();
+        final EventA a2 = new EventA();
+        final List<Event> events = new LinkedList<>();
+        events.add(a1);
+        events.add(a2);
+
+        // TEST
+        testee.dispatchEvents(events);
+
+        // VERIFY
+        assertThat(calls).containsExactly("h1-" + a1.getEventId(), "h2-" + a1.getEventId(), "h1-" + a2.getEventId(),
+                "h2-" + a2.getEventId());
+
+    }
+
+    @Test
+    public final void testEventsBeforeBrokenPayloadAreDispatched() {
+
+        // PREPARE
+        final CollectingEventHandler<EventA> handlerA = new CollectingEventHandler<>(EVENT_TYPE_A);
+        final CollectingEventHandler<EventB> handlerB = new CollectingEventHandler<>(EVENT_TYPE_B);
+        final EventDispatcher testee = new SimpleEventDispatcher(handlerA, handlerB);
+        final EventA a1 = new EventA();
+        final EventB b1 = new EventB();
+        final EventB b2 = new EventB();
+        final List<CommonEvent> events = new ArrayList<>();
+        events.add(asCommonEvent(a1));
+        events.add(asCommonEvent(b1));
+        events.add(new NotDeserializableCommonEvent(new TypeName(EVENT_TYPE_B.asBaseType())));
+        events.add(asCommonEvent(b2));
+
+        // TEST
+        assertThrows(IllegalStateException.class, () -> testee.dispatchCommonEvents(events));
+
+        // VERIFY
+        assertThat(handlerA.getEvents()).containsExactly(a1);
+        assertThat(handlerB.getEvents()).containsExactly(b1);
+
+    }
+
     private static CommonEvent asCommonEvent(final Event event) {
         final EventId eventId = new EventId(event.getEventId().asBaseType());
         final TypeName typeName = new TypeName(event.getEventType().asBaseType());
@@ -206,5 +353,50 @@ public final class SimpleEventDispatcherTest {
 
     }
 
+    private static class CollectingBatchEventHandler<TYPE extends Event> extends CollectingEventHandler<TYPE>
+            implements BatchEventHandler<TYPE> {
+
+        private List<List<Event>> batches;
+
+        public CollectingBatchEventHandler(EventType type) {
+            super(type);
+            this.batches = new ArrayList<>();
+        }
+
+        @Override
+        public void handleBatch(List<TYPE> events) {
+            batches.add(new ArrayList<Event>(events));
+        }
+
+        public List<List<Event>> getBatches() {
+            return batches;
+        }
+
+    }
+
+    private static class RecordingEventHandler implements EventHandler<EventA> {
+
+        private final String name;
+
+        private final List<String> calls;
+
+        public RecordingEventHandler(String name, List<String> calls) {
+            super();
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+        @Override
+        public void handle(EventA event) {
+            calls.add(name + "-" + event.getEventId());
+        }
+
+    }
+
 }
 // CHECKSTYLE:ON
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2015 Michael Schnell. All rights reserved. 
+ * http://www.fuin.org/
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see http://www.gnu.org/licenses/.
+ */
+package org.fuin.cqrs4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.fuin.ddd4j.ddd.AbstractEvent;
+import org.fuin.ddd4j.ddd.Event;
+import org.fuin.ddd4j.ddd.EventType;
+import org.fuin.esc.api.CommonEvent;
+import org.fuin.esc.api.EventId;
+import org.fuin.esc.api.TypeName;
+
+//CHECKSTYLE:OFF
+final class TestEvents {
+
+    static final EventType EVENT_TYPE_A = new EventType("EventA");
+
+    static final EventType EVENT_TYPE_B = new EventType("EventB");
+
+    private TestEvents() {
+        throw new UnsupportedOperationException();
+    }
+
+    static class EventA extends AbstractEvent {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_A;
+        }
+
+    }
+
+    static class EventB extends AbstractEvent {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public EventType getEventType() {
+            return EVENT_TYPE_B;
+        }
+
+    }
+
+    /**
+     * Thread safe handler that remembers the events and the names of the threads that called it. It optionally blocks until released and
+     * can be told to fail a number of times.
+     */
+    static class CollectingEventHandler<TYPE extends Event> implements EventHandler<TYPE> {
+
+        private final EventType type;
+
+        private final CountDownLatch release;
+
+        private final CountDownLatch started;
+
+        private final List<Event> events;
+
+        private final Set<String> threads;
+
+        private int failures;
+
+        public CollectingEventHandler() {
+            this(EVENT_TYPE_A, null);
+        }
+
+        public CollectingEventHandler(EventType type) {
+            this(type, null);
+        }
+
+        public CollectingEventHandler(EventType type, CountDownLatch release) {
+            super();
+            this.type = type;
+            this.release = release;
+            this.started = new CountDownLatch(1);
+            this.events = new ArrayList<>();
+            this.threads = Collections.synchronizedSet(new LinkedHashSet<>());
+        }
+
+        @Override
+        public EventType getEventType() {
+            return type;
+        }
+
+        @Override
+        public void handle(TYPE event) {
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (events) {
+                if (failures > 0) {
+                    failures--;
+                    throw new IllegalStateException("Failed");
+                }
+                events.add(event);
+                events.notifyAll();
+            }
+        }
+
+        public void setFailures(int failures) {
+            synchronized (events) {
+                this.failures = failures;
+            }
+        }
+
+        public boolean awaitEvents(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            final long end = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (events) {
+                while (events.size() < count) {
+                    final long wait = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+                    if (wait <= 0) {
+                        return false;
+                    }
+                    events.wait(wait);
+                }
+                return true;
+            }
+        }
+
+        public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException {
+            return started.await(timeout, unit);
+        }
+
+        public List<Event> getEvents() {
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        }
+
+        public List<String> getThreads() {
+            synchronized (threads) {
+                return new ArrayList<>(threads);
+            }
+        }
+
+    }
+
+    /**
+     * Common event that fails if the data is deserialized.
+     */
+    static class NotDeserializableCommonEvent implements CommonEvent {
+
+        private final TypeName dataType;
+
+        public NotDeserializableCommonEvent(TypeName dataType) {
+            super();
+            this.dataType = dataType;
+        }
+
+        @Override
+        public EventId getId() {
+            return new EventId();
+        }
+
+        @Override
+        public TypeName getDataType() {
+            return dataType;
+        }
+
+        @Override
+        public Object getData() {
+            throw new IllegalStateException("Data should not be deserialized");
+        }
+
+        @Override
+        public TypeName getMetaType() {
+            return null;
+        }
+
+        @Override
+        public Object getMeta() {
+            return null;
+        }
+
+    }
+
+}
+// CHECKSTYLE:ON